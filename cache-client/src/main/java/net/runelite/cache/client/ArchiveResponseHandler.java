@@ -40,9 +40,17 @@ public class ArchiveResponseHandler extends SimpleChannelInboundHandler<ArchiveR
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, ArchiveResponsePacket archiveResponse) throws Exception
 	{
-		client.onFileFinish(archiveResponse.getIndex(),
+		client.onFileFinish(ctx.channel(),
+			archiveResponse.getIndex(),
 			archiveResponse.getArchive(),
 			archiveResponse.getData());
 	}
 
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception
+	{
+		client.onChannelClosed(ctx.channel());
+		ctx.fireChannelInactive();
+	}
+
 }
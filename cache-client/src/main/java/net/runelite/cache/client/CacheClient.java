@@ -33,6 +33,7 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
@@ -40,9 +41,15 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -67,20 +74,29 @@ public class CacheClient implements AutoCloseable
 	private static final String HOST = "oldschool1.runescape.com";
 	private static final int PORT = 43594;
 
-	private static final int MAX_REQUESTS = 19; // too many and the server closes the conncetion
+	static final int MAX_REQUESTS = 19; // per connection, too many and the server closes the conncetion
 
 	private final Store store; // store cache will be written to
 	private final String host;
 	private final int clientRevision;
 	private DownloadWatcher watcher;
+	private Semaphore downloadPermits;
+	private int connections = 1;
 
-	private ClientState state;
+	private volatile ClientState state;
 
 	private final EventLoopGroup group = new NioEventLoopGroup(1);
-	private Channel channel;
-
-	private CompletableFuture<HandshakeResponseType> handshakeFuture;
-	private final Queue<PendingFileRequest> requests = new ArrayDeque<>();
+	// every channel is on this one event loop, which is the only thread
+	// touching the request state below
+	private final EventLoop eventLoop = group.next();
+	private final List<Channel> channels = new ArrayList<>();
+
+	// requests queued or in flight, by index and archive
+	private final Map<Long, PendingFileRequest> requests = new HashMap<>();
+	// requests not yet sent
+	private final Deque<PendingFileRequest> queue = new ArrayDeque<>();
+	// number of requests in flight on each connected channel
+	private final Map<Channel, Integer> inFlight = new LinkedHashMap<>();
 
 	public CacheClient(Store store, int clientRevision)
 	{
@@ -100,6 +116,34 @@ public class CacheClient implements AutoCloseable
 		this.watcher = watcher;
 	}
 
+	/**
+	 * Set the number of connections archives are downloaded over. This
+	 * must be set before connecting. Defaults to one; using more is up to
+	 * the caller, as each connection is another session on the update
+	 * server. Requests in flight on a connection which closes are resent
+	 * on the others.
+	 *
+	 * @param connections
+	 */
+	public void setConnections(int connections)
+	{
+		this.connections = connections;
+	}
+
+	/**
+	 * Limit the number of downloaded archives the watcher has yet to
+	 * finish with. A permit is acquired by the downloading thread before
+	 * each archive is requested, and must be released by the watcher once
+	 * it is done with the archive passed to downloadComplete. The client
+	 * releases the permit itself if the download fails.
+	 *
+	 * @param downloadPermits
+	 */
+	public void setDownloadPermits(Semaphore downloadPermits)
+	{
+		this.downloadPermits = downloadPermits;
+	}
+
 	public void connect()
 	{
 		Bootstrap b = new Bootstrap();
@@ -131,8 +175,11 @@ public class CacheClient implements AutoCloseable
 			});
 
 		// Start the client.
-		ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
-		channel = f.channel();
+		for (int i = 0; i < connections; ++i)
+		{
+			ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
+			channels.add(f.channel());
+		}
 	}
 
 	public CompletableFuture<HandshakeResponseType> handshake()
@@ -142,20 +189,31 @@ public class CacheClient implements AutoCloseable
 
 		state = ClientState.HANDSHAKING;
 
-		assert handshakeFuture == null;
-		handshakeFuture = new CompletableFuture<>();
-
-		channel.writeAndFlush(handshakePacket);
+		List<CompletableFuture<HandshakeResponseType>> futures = new ArrayList<>();
+		for (Channel channel : channels)
+		{
+			futures.add(channel.pipeline().get(HandshakeResponseHandler.class).getHandshakeFuture());
+			channel.writeAndFlush(handshakePacket);
+		}
 
 		logger.info("Sent handshake with revision {}", handshakePacket.getRevision());
 
-		return handshakeFuture;
+		// the response is the first one which isn't ok, if any
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+			.thenApply(v -> futures.stream()
+				.map(CompletableFuture::join)
+				.filter(response -> response != HandshakeResponseType.RESPONSE_OK)
+				.findFirst()
+				.orElse(HandshakeResponseType.RESPONSE_OK));
 	}
 
 	@Override
 	public void close()
 	{
-		channel.close().syncUninterruptibly();
+		for (Channel channel : channels)
+		{
+			channel.close().syncUninterruptibly();
+		}
 		group.shutdownGracefully();
 	}
 
@@ -164,6 +222,11 @@ public class CacheClient implements AutoCloseable
 		return clientRevision;
 	}
 
+	EventLoop getEventLoop()
+	{
+		return eventLoop;
+	}
+
 	public ClientState getState()
 	{
 		return state;
@@ -174,11 +237,6 @@ public class CacheClient implements AutoCloseable
 		this.state = state;
 	}
 
-	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
-	{
-		return handshakeFuture;
-	}
-
 	public List<IndexInfo> requestIndexes() throws IOException
 	{
 		logger.info("Requesting indexes");
@@ -205,8 +263,18 @@ public class CacheClient implements AutoCloseable
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
 		List<IndexInfo> indexes = requestIndexes();
+
+		// request every reference table up front
+		List<CompletableFuture<FileResult>> indexFutures = new ArrayList<>(indexes.size());
 		for (IndexInfo indexInfo : indexes)
 		{
+			indexFutures.add(requestFile(255, indexInfo.getId(), true));
+		}
+
+		List<CompletableFuture<Void>> downloads = new ArrayList<>();
+		for (int n = 0; n < indexes.size(); ++n)
+		{
+			IndexInfo indexInfo = indexes.get(n);
 			int i = indexInfo.getId();
 			int crc = indexInfo.getCrc();
 			int revision = indexInfo.getRevision();
@@ -242,7 +310,7 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Downloading index {}", i);
 
-			FileResult indexFileResult = requestFile(255, i, true).join();
+			FileResult indexFileResult = indexFutures.get(n).join();
 			indexFileResult.decompress(null);
 
 			logger.info("Downloaded index {}", i);
@@ -269,6 +337,10 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Index {} has {} archives", i, indexData.getArchives().length);
 
+			Stopwatch indexStopwatch = Stopwatch.createStarted();
+			AtomicLong indexBytes = new AtomicLong();
+			List<CompletableFuture<Void>> archiveFutures = new ArrayList<>();
+
 			for (ArchiveData ad : indexData.getArchives())
 			{
 				Archive existing = index.getArchive(ad.getId());
@@ -314,10 +386,25 @@ public class CacheClient implements AutoCloseable
 				// Add files
 				archive.setFileData(ad.getFiles());
 
+				if (downloadPermits != null)
+				{
+					// blocks this thread, rather than the event loop, until the watcher catches up
+					downloadPermits.acquireUninterruptibly();
+				}
+
 				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId(), false);
-				future.handle((fr, ex) ->
+				archiveFutures.add(future.handle((fr, ex) ->
 				{
+					if (ex != null)
+					{
+						logger.warn("unable to download archive {}/{}",
+							archive.getIndex().getId(), archive.getArchiveId(), ex);
+						releasePermit();
+						return null;
+					}
+
 					byte[] data = fr.getCompressedData();
+					indexBytes.addAndGet(data.length);
 
 					Crc32 crc32 = new Crc32();
 					crc32.update(data, 0, data.length);
@@ -328,6 +415,7 @@ public class CacheClient implements AutoCloseable
 						logger.warn("crc mismatch on downloaded archive {}/{}: {} != {}",
 							archive.getIndex().getId(), archive.getArchiveId(),
 							hash, archive.getCrc());
+						releasePermit();
 						throw new RuntimeException("crc mismatch");
 					}
 
@@ -346,109 +434,217 @@ public class CacheClient implements AutoCloseable
 						{
 							logger.warn("unable to save archive data", ex1);
 						}
+						finally
+						{
+							releasePermit();
+						}
 					}
 					return null;
-				});
+				}));
 			}
-		}
-
-		// flush any pending requests
-		channel.flush();
 
-		while (!requests.isEmpty())
-		{
-			// wait for pending requests
-			synchronized (this)
+			if (archiveFutures.isEmpty())
 			{
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
-				{
-					logger.warn(null, ex);
-				}
+				continue;
 			}
+
+			final int indexId = i;
+			downloads.add(CompletableFuture.allOf(archiveFutures.toArray(new CompletableFuture[archiveFutures.size()]))
+				.handle((v, ex) ->
+				{
+					indexStopwatch.stop();
+					indexComplete(indexId, archiveFutures.size(), indexBytes.get(), indexStopwatch.elapsed(TimeUnit.MILLISECONDS));
+					return null;
+				}));
 		}
 
+		// wait for pending requests
+		CompletableFuture.allOf(downloads.toArray(new CompletableFuture[downloads.size()])).join();
+
 		stopwatch.stop();
 		logger.info("Download completed in {}", stopwatch);
 	}
 
-	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId, boolean flush)
+	private void releasePermit()
+	{
+		if (downloadPermits != null)
+		{
+			downloadPermits.release();
+		}
+	}
+
+	private void indexComplete(int index, int archives, long bytes, long millis)
+	{
+		logger.info("Downloaded {} archives of index {}, {} bytes in {}ms ({} KB/s)",
+			archives, index, bytes, millis, millis > 0 ? bytes / millis : bytes);
+
+		if (watcher != null)
+		{
+			watcher.indexComplete(index, archives, bytes, millis);
+		}
+	}
+
+	CompletableFuture<FileResult> requestFile(int index, int fileId, boolean urgent)
 	{
 		if (state != ClientState.CONNECTED)
 		{
 			throw new IllegalStateException("Can't request files until connected!");
 		}
 
-		if (!flush)
+		CompletableFuture<FileResult> future = new CompletableFuture<>();
+		PendingFileRequest pf = new PendingFileRequest(index,
+			fileId, urgent, future);
+
+		eventLoop.execute(() -> queueRequest(pf));
+
+		return future;
+	}
+
+	private static long key(int index, int file)
+	{
+		return (long) index << 32 | file;
+	}
+
+	private void queueRequest(PendingFileRequest pf)
+	{
+		assert eventLoop.inEventLoop();
+
+		PendingFileRequest existing = requests.putIfAbsent(key(pf.getIndex(), pf.getArchive()), pf);
+		if (existing != null)
 		{
-			while (requests.size() >= MAX_REQUESTS)
+			// already requested
+			existing.getFuture().whenComplete((result, ex) ->
 			{
-				channel.flush();
-
-				try
+				if (ex != null)
 				{
-					wait();
+					pf.getFuture().completeExceptionally(ex);
 				}
-				catch (InterruptedException ex)
+				else
 				{
-					logger.warn("interrupted while waiting for requests", ex);
+					pf.getFuture().complete(result);
 				}
-			}
+			});
+			return;
 		}
 
-		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
-		archiveRequest.setPriority(false);
-		archiveRequest.setIndex(index);
-		archiveRequest.setArchive(fileId);
-
-		CompletableFuture<FileResult> future = new CompletableFuture<>();
-		PendingFileRequest pf = new PendingFileRequest(index,
-			fileId, future);
+		if (pf.isUrgent())
+		{
+			queue.addFirst(pf);
+		}
+		else
+		{
+			queue.addLast(pf);
+		}
 
-		logger.trace("Sending request for {}/{}", index, fileId);
+		sendRequests();
+	}
 
-		requests.add(pf);
+	/**
+	 * Send queued requests on the least loaded connections, until every
+	 * connection has the maximum number of requests in flight
+	 */
+	private void sendRequests()
+	{
+		boolean sent = false;
 
-		if (!flush)
+		while (!queue.isEmpty())
 		{
+			Channel channel = null;
+			int min = MAX_REQUESTS;
+			for (Map.Entry<Channel, Integer> entry : inFlight.entrySet())
+			{
+				if (entry.getValue() < min)
+				{
+					channel = entry.getKey();
+					min = entry.getValue();
+				}
+			}
+
+			if (channel == null)
+			{
+				break;
+			}
+
+			PendingFileRequest pf = queue.poll();
+			pf.setChannel(channel);
+			inFlight.put(channel, min + 1);
+
+			ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
+			archiveRequest.setPriority(pf.isUrgent());
+			archiveRequest.setIndex(pf.getIndex());
+			archiveRequest.setArchive(pf.getArchive());
+
+			logger.trace("Sending request for {}/{}", pf.getIndex(), pf.getArchive());
+
 			channel.write(archiveRequest);
+			sent = true;
 		}
-		else
+
+		if (sent)
 		{
-			channel.writeAndFlush(archiveRequest);
+			for (Channel channel : inFlight.keySet())
+			{
+				channel.flush();
+			}
 		}
+	}
 
-		return future;
+	void onConnected(Channel channel)
+	{
+		state = ClientState.CONNECTED;
+		inFlight.put(channel, 0);
+		sendRequests();
 	}
 
-	private PendingFileRequest findRequest(int index, int file)
+	void onChannelClosed(Channel channel)
 	{
-		for (PendingFileRequest pr : requests)
+		if (inFlight.remove(channel) == null)
+		{
+			return;
+		}
+
+		if (inFlight.isEmpty())
 		{
-			if (pr.getIndex() == index && pr.getArchive() == file)
+			// nothing is left to send requests on
+			IOException ex = new IOException("Connection closed");
+			for (PendingFileRequest pr : requests.values())
 			{
-				return pr;
+				pr.getFuture().completeExceptionally(ex);
 			}
+			requests.clear();
+			queue.clear();
+			return;
 		}
-		return null;
+
+		// resend this channel's requests on the other channels
+		for (PendingFileRequest pr : requests.values())
+		{
+			if (pr.getChannel() == channel)
+			{
+				pr.setChannel(null);
+				queue.addFirst(pr);
+			}
+		}
+
+		sendRequests();
 	}
 
-	protected synchronized void onFileFinish(int index, int file, byte[] compressedData)
+	void onFileFinish(Channel channel, int index, int file, byte[] compressedData)
 	{
-		PendingFileRequest pr = findRequest(index, file);
+		long key = key(index, file);
+		PendingFileRequest pr = requests.get(key);
 
-		if (pr == null)
+		if (pr == null || pr.getChannel() != channel)
 		{
 			logger.warn("File download {}/{} with no pending request", index, file);
 			return;
 		}
 
-		requests.remove(pr);
+		requests.remove(key);
+		inFlight.computeIfPresent(channel, (c, count) -> count - 1);
 
-		notify();
+		// refill the window before handling the result
+		sendRequests();
 
 		FileResult result = new FileResult(index, file, compressedData);
 
@@ -30,4 +30,17 @@ import net.runelite.cache.fs.Archive;
 public interface DownloadWatcher
 {
 	void downloadComplete(Archive archive, byte[] data);
+
+	/**
+	 * Called when every archive of an index requested during a download
+	 * has been received
+	 *
+	 * @param index index id
+	 * @param archives number of archives downloaded
+	 * @param bytes total size of the archives
+	 * @param millis time taken from requesting the first archive
+	 */
+	default void indexComplete(int index, int archives, long bytes, long millis)
+	{
+	}
 }
@@ -41,20 +41,23 @@ public class HandshakeResponseHandler extends SimpleChannelInboundHandler<Handsh
 	private static final Logger logger = LoggerFactory.getLogger(HandshakeResponseHandler.class);
 
 	private final CacheClient client;
+	private final CompletableFuture<HandshakeResponseType> handshakeFuture = new CompletableFuture<>();
 
 	public HandshakeResponseHandler(CacheClient client)
 	{
 		this.client = client;
 	}
 
+	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	{
+		return handshakeFuture;
+	}
+
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, HandshakeResponsePacket handshakeResponse) throws Exception
 	{
 		Channel channel = ctx.channel();
 		ChannelPipeline p = ctx.pipeline();
-		CompletableFuture<HandshakeResponseType> handshakeFuture = client.getHandshakeFuture();
-
-		assert handshakeFuture != null;
 
 		if (handshakeResponse.getResponse() != HandshakeResponseType.RESPONSE_OK)
 		{
@@ -69,12 +72,12 @@ public class HandshakeResponseHandler extends SimpleChannelInboundHandler<Handsh
 		encryptionPacket.setKey((byte) 0);
 		channel.writeAndFlush(encryptionPacket);
 
-		client.setState(ClientState.CONNECTED);
-
 		logger.info("Client is now connected!");
 
 		p.replace("decoder", "decoder", new ArchiveResponseDecoder());
 
+		client.onConnected(channel);
+
 		handshakeFuture.complete(handshakeResponse.getResponse());
 	}
 
@@ -24,18 +24,22 @@
  */
 package net.runelite.cache.client;
 
+import io.netty.channel.Channel;
 import java.util.concurrent.CompletableFuture;
 
 public class PendingFileRequest
 {
 	private final int index;
 	private final int archive;
+	private final boolean urgent;
 	private final CompletableFuture<FileResult> future;
+	private Channel channel; // channel the request was sent on, or null if it hasn't been sent
 
-	public PendingFileRequest(int index, int archive, CompletableFuture<FileResult> future)
+	public PendingFileRequest(int index, int archive, boolean urgent, CompletableFuture<FileResult> future)
 	{
 		this.index = index;
 		this.archive = archive;
+		this.urgent = urgent;
 		this.future = future;
 	}
 
@@ -49,8 +53,23 @@ public class PendingFileRequest
 		return archive;
 	}
 
+	public boolean isUrgent()
+	{
+		return urgent;
+	}
+
 	public CompletableFuture<FileResult> getFuture()
 	{
 		return future;
 	}
+
+	public Channel getChannel()
+	{
+		return channel;
+	}
+
+	public void setChannel(Channel channel)
+	{
+		this.channel = channel;
+	}
 }
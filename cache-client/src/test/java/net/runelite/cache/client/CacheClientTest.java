@@ -24,11 +24,17 @@
  */
 package net.runelite.cache.client;
 
+import io.netty.channel.embedded.EmbeddedChannel;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import net.runelite.cache.CacheProperties;
 import net.runelite.cache.fs.Store;
 import net.runelite.protocol.api.login.HandshakeResponseType;
+import net.runelite.protocol.api.update.ArchiveRequestPacket;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -71,4 +77,120 @@ public class CacheClientTest
 			store.save();
 		}
 	}
+
+	@Test
+	public void testWindowRefill() throws Exception
+	{
+		CacheClient client = new CacheClient(null, 0);
+		try
+		{
+			EmbeddedChannel channel = new EmbeddedChannel();
+			onEventLoop(client, () -> client.onConnected(channel));
+
+			List<CompletableFuture<FileResult>> futures = new ArrayList<>();
+			for (int i = 0; i < CacheClient.MAX_REQUESTS + 2; ++i)
+			{
+				futures.add(client.requestFile(2, i, false));
+			}
+			// wait for the requests to be queued
+			onEventLoop(client, () ->
+			{
+			});
+
+			// only a full window is sent
+			Assert.assertEquals(CacheClient.MAX_REQUESTS, readRequests(channel).size());
+
+			// responses are matched by index and archive, in any order
+			byte[] data = new byte[]{ 1, 2, 3 };
+			onEventLoop(client, () -> client.onFileFinish(channel, 2, 5, data));
+			Assert.assertArrayEquals(data, futures.get(5).getNow(null).getCompressedData());
+			Assert.assertFalse(futures.get(0).isDone());
+
+			// the finished request's slot is refilled from the queue
+			Assert.assertEquals(Arrays.asList(CacheClient.MAX_REQUESTS), readRequests(channel));
+
+			// responses which weren't requested don't free a slot
+			onEventLoop(client, () -> client.onFileFinish(channel, 3, 0, data));
+			onEventLoop(client, () -> client.onFileFinish(channel, 2, 5, data));
+			Assert.assertTrue(readRequests(channel).isEmpty());
+
+			onEventLoop(client, () -> client.onFileFinish(channel, 2, 0, data));
+			Assert.assertEquals(Arrays.asList(CacheClient.MAX_REQUESTS + 1), readRequests(channel));
+		}
+		finally
+		{
+			client.close();
+		}
+	}
+
+	@Test
+	public void testRequeueOnClose() throws Exception
+	{
+		CacheClient client = new CacheClient(null, 0);
+		try
+		{
+			EmbeddedChannel first = new EmbeddedChannel();
+			EmbeddedChannel second = new EmbeddedChannel();
+			onEventLoop(client, () ->
+			{
+				client.onConnected(first);
+				client.onConnected(second);
+			});
+
+			List<CompletableFuture<FileResult>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; ++i)
+			{
+				futures.add(client.requestFile(1, i, false));
+			}
+			// wait for the requests to be queued
+			onEventLoop(client, () ->
+			{
+			});
+
+			// requests go to the least loaded channel
+			Assert.assertEquals(Arrays.asList(0, 2), readRequests(first));
+			Assert.assertEquals(Arrays.asList(1, 3), readRequests(second));
+
+			// the closed channel's requests are resent on the other one
+			onEventLoop(client, () -> client.onChannelClosed(first));
+			List<Integer> resent = readRequests(second);
+			Collections.sort(resent);
+			Assert.assertEquals(Arrays.asList(0, 2), resent);
+
+			// and are only completed by a response on that channel
+			byte[] data = new byte[]{ 1, 2, 3 };
+			onEventLoop(client, () -> client.onFileFinish(first, 1, 0, data));
+			Assert.assertFalse(futures.get(0).isDone());
+			onEventLoop(client, () -> client.onFileFinish(second, 1, 0, data));
+			Assert.assertArrayEquals(data, futures.get(0).getNow(null).getCompressedData());
+
+			// with no channels left, the remaining requests fail
+			onEventLoop(client, () -> client.onChannelClosed(second));
+			for (int i = 1; i < 4; ++i)
+			{
+				Assert.assertTrue(futures.get(i).isCompletedExceptionally());
+			}
+		}
+		finally
+		{
+			client.close();
+		}
+	}
+
+	private static void onEventLoop(CacheClient client, Runnable runnable) throws Exception
+	{
+		// the request state is only touched on the client's event loop
+		client.getEventLoop().submit(runnable).get();
+	}
+
+	private static List<Integer> readRequests(EmbeddedChannel channel)
+	{
+		List<Integer> archives = new ArrayList<>();
+		ArchiveRequestPacket packet;
+		while ((packet = (ArchiveRequestPacket) channel.readOutbound()) != null)
+		{
+			archives.add(packet.getArchive());
+		}
+		return archives;
+	}
 }
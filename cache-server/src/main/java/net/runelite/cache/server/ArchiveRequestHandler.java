@@ -29,8 +29,14 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveCache;
+import net.runelite.cache.fs.CachingStorage;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -46,29 +52,129 @@ public class ArchiveRequestHandler extends SimpleChannelInboundHandler<ArchiveRe
 {
 	private static final Logger logger = LoggerFactory.getLogger(ArchiveRequestHandler.class);
 
+	/**
+	 * Maximum number of archives loaded at once for a single connection
+	 */
+	private static final int MAX_LOADING = 4;
+
 	private final Store store;
+	private final ArchiveCache archiveCache;
+	private final Executor executor;
+
+	// requests waiting to be loaded, only accessed from the event loop
+	private final Deque<ArchiveRequestPacket> urgent = new ArrayDeque<>();
+	private final Deque<ArchiveRequestPacket> prefetch = new ArrayDeque<>();
+	private int loading;
 
-	public ArchiveRequestHandler(Store store)
+	/**
+	 * @param store store to serve archives from
+	 * @param archiveCache cache of packed archives
+	 * @param executor executor to load archives on, off of the event loop
+	 */
+	public ArchiveRequestHandler(Store store, ArchiveCache archiveCache, Executor executor)
 	{
 		this.store = store;
+		this.archiveCache = archiveCache;
+		this.executor = executor;
 	}
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, ArchiveRequestPacket archiveRequest) throws Exception
 	{
-		if (archiveRequest.getIndex() == 255)
+		if (archiveRequest.isPriority())
 		{
-			handleRequest255(ctx, archiveRequest.getIndex(),
-				archiveRequest.getArchive());
+			urgent.add(archiveRequest);
 		}
 		else
 		{
-			handleRequest(ctx, archiveRequest.getIndex(),
-				archiveRequest.getArchive());
+			prefetch.add(archiveRequest);
+		}
+
+		serve(ctx);
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
+	{
+		serve(ctx);
+		ctx.fireChannelWritabilityChanged();
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception
+	{
+		urgent.clear();
+		prefetch.clear();
+		ctx.fireChannelInactive();
+	}
+
+	/**
+	 * Start loading queued requests, urgent requests first. Nothing new is
+	 * started while the channel is unwritable, which bounds the number of
+	 * bytes buffered for a slow client to the channel's high water mark.
+	 */
+	private void serve(ChannelHandlerContext ctx)
+	{
+		while (loading < MAX_LOADING && ctx.channel().isWritable())
+		{
+			ArchiveRequestPacket request = urgent.poll();
+			if (request == null)
+			{
+				request = prefetch.poll();
+				if (request == null)
+				{
+					return;
+				}
+			}
+
+			final ArchiveRequestPacket archiveRequest = request;
+			try
+			{
+				executor.execute(() -> load(ctx, archiveRequest));
+			}
+			catch (RejectedExecutionException ex)
+			{
+				// server is shutting down
+				return;
+			}
+			++loading;
 		}
 	}
 
-	private void handleRequest255(ChannelHandlerContext ctx, int index, int archiveId) throws IOException
+	private void load(ChannelHandlerContext ctx, ArchiveRequestPacket archiveRequest)
+	{
+		ArchiveResponsePacket response = null;
+		try
+		{
+			if (archiveRequest.getIndex() == 255)
+			{
+				response = handleRequest255(ctx, archiveRequest.getIndex(),
+					archiveRequest.getArchive());
+			}
+			else
+			{
+				response = handleRequest(ctx, archiveRequest.getIndex(),
+					archiveRequest.getArchive());
+			}
+		}
+		catch (Exception ex)
+		{
+			logger.warn("Unable to load archive {}/{}", archiveRequest.getIndex(), archiveRequest.getArchive(), ex);
+		}
+
+		final ArchiveResponsePacket archiveResponse = response;
+		ctx.executor().execute(() ->
+		{
+			--loading;
+			if (archiveResponse != null)
+			{
+				ctx.writeAndFlush(archiveResponse);
+			}
+			serve(ctx);
+		});
+	}
+
+	private ArchiveResponsePacket handleRequest255(ChannelHandlerContext ctx, int index, int archiveId) throws IOException
 	{
 		logger.info("Client {} requests 255: index {}, archive {}", ctx.channel().remoteAddress(), index, archiveId);
 
@@ -90,21 +196,32 @@ public class ArchiveRequestHandler extends SimpleChannelInboundHandler<ArchiveRe
 		}
 		else
 		{
+			Index i = store.findIndex(archiveId);
+			if (i == null)
+			{
+				logger.warn("Missing index {}", archiveId);
+				return null;
+			}
+
 			// Requires disk storage. Use packed index data from
 			// store as its crc matches
-			DiskStorage storage = (DiskStorage) store.getStorage();
-			compressed = storage.readIndex(archiveId);
+			Storage storage = store.getStorage();
+			if (storage instanceof CachingStorage)
+			{
+				storage = ((CachingStorage) storage).getStorage();
+			}
+			DiskStorage diskStorage = (DiskStorage) storage;
+			compressed = archiveCache.get(index, archiveId, i.getCrc(), () -> diskStorage.readIndex(archiveId));
 		}
 
 		ArchiveResponsePacket response = new ArchiveResponsePacket();
 		response.setIndex(index);
 		response.setArchive(archiveId);
 		response.setData(compressed);
-
-		ctx.writeAndFlush(response);
+		return response;
 	}
 
-	private void handleRequest(ChannelHandlerContext ctx, int index, int archiveId) throws IOException
+	private ArchiveResponsePacket handleRequest(ChannelHandlerContext ctx, int index, int archiveId) throws IOException
 	{
 		logger.info("Client {} requests index {} archive {}", ctx.channel().remoteAddress(), index, archiveId);
 
@@ -114,13 +231,32 @@ public class ArchiveRequestHandler extends SimpleChannelInboundHandler<ArchiveRe
 		Archive archive = i.getArchive(archiveId);
 		assert archive != null;
 
+		byte[] packed = archiveCache.get(index, archiveId, archive.getCrc(), () -> loadArchive(archive));
+
+		if (packed == null)
+		{
+			logger.warn("Missing archive {}/{}", index, archiveId);
+			return null; // is it possible to notify the client of an error with this?
+		}
+
+		ArchiveResponsePacket response = new ArchiveResponsePacket();
+		response.setIndex(index);
+		response.setArchive(archiveId);
+		response.setData(packed);
+		return response;
+	}
+
+	/**
+	 * Load an archive as the client expects it
+	 */
+	private byte[] loadArchive(Archive archive) throws IOException
+	{
 		Storage storage = store.getStorage();
 		byte[] packed = storage.loadArchive(archive); // is compressed, includes length and type
 
 		if (packed == null)
 		{
-			logger.warn("Missing archive {}/{}", index, archiveId);
-			return; // is it possible to notify the client of an error with this?
+			return null;
 		}
 
 		byte compression = packed[0];
@@ -141,12 +277,7 @@ public class ArchiveRequestHandler extends SimpleChannelInboundHandler<ArchiveRe
 			packed = Arrays.copyOf(packed, packed.length - 2);
 		}
 
-		ArchiveResponsePacket response = new ArchiveResponsePacket();
-		response.setIndex(index);
-		response.setArchive(archiveId);
-		response.setData(packed);
-
-		ctx.writeAndFlush(response);
+		return packed;
 	}
 
 	private byte[] compress(int compression, byte[] data) throws IOException
@@ -29,8 +29,13 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.runelite.cache.fs.ArchiveCache;
 import net.runelite.cache.fs.Store;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,18 +45,33 @@ public class CacheServer implements AutoCloseable
 	private static final Logger logger = LoggerFactory.getLogger(CacheServer.class);
 
 	private static final int PORT = 43594;
+	private static final long ARCHIVE_CACHE_SIZE = 64L * 1024L * 1024L;
+	private static final int WORKER_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+	// bytes buffered for a client before it stops being served
+	private static final int WRITE_BUFFER_LOW_WATER_MARK = 256 * 1024;
+	private static final int WRITE_BUFFER_HIGH_WATER_MARK = 1024 * 1024;
 
 	private final EventLoopGroup group = new NioEventLoopGroup(1);
+	private final ExecutorService executor = Executors.newFixedThreadPool(WORKER_THREADS,
+		new DefaultThreadFactory("cache-server-worker", true));
 
 	private Channel channel;
 
 	private final Store store;
 	private final int revision;
+	private final ArchiveCache archiveCache;
 
 	public CacheServer(Store store, int revision)
+	{
+		this(store, revision, new ArchiveCache(ARCHIVE_CACHE_SIZE));
+	}
+
+	public CacheServer(Store store, int revision, ArchiveCache archiveCache)
 	{
 		this.store = store;
 		this.revision = revision;
+		this.archiveCache = archiveCache;
 	}
 
 	public void start()
@@ -60,6 +80,8 @@ public class CacheServer implements AutoCloseable
 		b.group(group)
 			.channel(NioServerSocketChannel.class)
 			.option(ChannelOption.TCP_NODELAY, true)
+			.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+				new WriteBufferWaterMark(WRITE_BUFFER_LOW_WATER_MARK, WRITE_BUFFER_HIGH_WATER_MARK))
 			.childHandler(new CacheServerInitializer(this));
 
 		ChannelFuture f = b.bind(PORT).syncUninterruptibly();
@@ -78,6 +100,7 @@ public class CacheServer implements AutoCloseable
 	{
 		channel.close().syncUninterruptibly();
 		group.shutdownGracefully();
+		executor.shutdown();
 	}
 
 	public int getRevision()
@@ -89,4 +112,14 @@ public class CacheServer implements AutoCloseable
 	{
 		return store;
 	}
+
+	public ArchiveCache getArchiveCache()
+	{
+		return archiveCache;
+	}
+
+	public ExecutorService getExecutor()
+	{
+		return executor;
+	}
 }
@@ -26,6 +26,7 @@ package net.runelite.cache.updater;
 
 import java.time.Instant;
 import java.util.List;
+import net.runelite.cache.index.FileData;
 import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
@@ -35,6 +36,9 @@ import org.sql2o.ResultSetIterable;
 
 class CacheDAO
 {
+	// maximum number of rows inserted per batch
+	private static final int BATCH_SIZE = 1000;
+
 	// cache prepared statements for high volume queries
 	private Query associateArchive;
 	private Query findArchive, insertArchive;
@@ -63,6 +67,12 @@ class CacheDAO
 			.executeAndFetchLazy(ArchiveEntry.class);
 	}
 
+	public ResultSetIterable<ArchiveEntry> findArchiveHashes(Connection con)
+	{
+		return con.createQuery("select distinct hash from archive")
+			.executeAndFetchLazy(ArchiveEntry.class);
+	}
+
 	public CacheEntry createCache(Connection con, int revision, Instant date)
 	{
 		int cacheId = con.createQuery("insert into cache (revision, date) values (:revision, :date)")
@@ -96,16 +106,31 @@ class CacheDAO
 		return entry;
 	}
 
-	public void associateArchiveToIndex(Connection con, ArchiveEntry archive, IndexEntry index)
+	public void associateArchivesToIndex(Connection con, List<ArchiveEntry> archives, IndexEntry index)
 	{
 		if (associateArchive == null)
 		{
 			associateArchive = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)");
 		}
-		associateArchive
-			.addParameter("index", index.getId())
-			.addParameter("archive", archive.getId())
-			.executeUpdate();
+
+		int count = 0;
+		for (ArchiveEntry archive : archives)
+		{
+			associateArchive
+				.addParameter("index", index.getId())
+				.addParameter("archive", archive.getId())
+				.addToBatch();
+
+			if (++count % BATCH_SIZE == 0)
+			{
+				associateArchive.executeBatch();
+			}
+		}
+
+		if (count % BATCH_SIZE != 0)
+		{
+			associateArchive.executeBatch();
+		}
 	}
 
 	public ArchiveEntry findArchive(Connection con, IndexEntry index,
@@ -134,8 +159,13 @@ class CacheDAO
 		return entry;
 	}
 
-	public ArchiveEntry createArchive(Connection con, IndexEntry index,
-		int archiveId, int nameHash, int crc, int revision, byte[] hash)
+	/**
+	 * Insert archives, and set their ids
+	 *
+	 * @param con
+	 * @param archives archives to insert
+	 */
+	public void createArchives(Connection con, List<ArchiveEntry> archives)
 	{
 		if (insertArchive == null)
 		{
@@ -143,35 +173,67 @@ class CacheDAO
 				+ "(:archiveId, :nameHash, :crc, :revision, :hash)");
 		}
 
-		int id = insertArchive
-			.addParameter("archiveId", archiveId)
-			.addParameter("nameHash", nameHash)
-			.addParameter("crc", crc)
-			.addParameter("revision", revision)
-			.addParameter("hash", hash)
-			.executeUpdate()
-			.getKey(int.class);
-
-		ArchiveEntry entry = new ArchiveEntry();
-		entry.setId(id);
-		entry.setArchiveId(archiveId);
-		entry.setNameHash(nameHash);
-		entry.setCrc(crc);
-		entry.setRevision(revision);
-		entry.setHash(hash);
-		return entry;
+		for (int start = 0; start < archives.size(); start += BATCH_SIZE)
+		{
+			List<ArchiveEntry> batch = archives.subList(start, Math.min(start + BATCH_SIZE, archives.size()));
+			for (ArchiveEntry entry : batch)
+			{
+				insertArchive
+					.addParameter("archiveId", entry.getArchiveId())
+					.addParameter("nameHash", entry.getNameHash())
+					.addParameter("crc", entry.getCrc())
+					.addParameter("revision", entry.getRevision())
+					.addParameter("hash", entry.getHash())
+					.addToBatch();
+			}
+
+			List<Integer> ids = insertArchive.executeBatch()
+				.getKeys(Integer.class);
+			assert ids.size() == batch.size();
+
+			for (int i = 0; i < batch.size(); ++i)
+			{
+				batch.get(i).setId(ids.get(i));
+			}
+		}
 	}
 
-	public void associateFileToArchive(Connection con, ArchiveEntry archive, int fileId, int nameHash)
+	/**
+	 * Insert the files of archives
+	 *
+	 * @param con
+	 * @param archives archives the files are in
+	 * @param files files of each archive
+	 */
+	public void associateFilesToArchives(Connection con, List<ArchiveEntry> archives, List<FileData[]> files)
 	{
 		if (associateFile == null)
 		{
 			associateFile = con.createQuery("insert into file (archive, fileId, nameHash) values (:archive, :fileId, :nameHash)");
 		}
-		associateFile
-			.addParameter("archive", archive.getId())
-			.addParameter("fileId", fileId)
-			.addParameter("nameHash", nameHash)
-			.executeUpdate();
+
+		int count = 0;
+		for (int i = 0; i < archives.size(); ++i)
+		{
+			ArchiveEntry archive = archives.get(i);
+			for (FileData file : files.get(i))
+			{
+				associateFile
+					.addParameter("archive", archive.getId())
+					.addParameter("fileId", file.getId())
+					.addParameter("nameHash", file.getNameHash())
+					.addToBatch();
+
+				if (++count % BATCH_SIZE == 0)
+				{
+					associateFile.executeBatch();
+				}
+			}
+		}
+
+		if (count % BATCH_SIZE != 0)
+		{
+			associateFile.executeBatch();
+		}
 	}
 }
@@ -25,7 +25,10 @@
 package net.runelite.cache.updater;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
@@ -42,6 +45,8 @@ public class CacheStorage implements Storage
 	private CacheEntry cacheEntry;
 	private final CacheDAO cacheDao;
 	private final Connection con;
+	// archives loaded from the database, by index and archive id
+	private final Map<Long, ArchiveEntry> loadedArchives = new HashMap<>();
 
 	public CacheStorage(CacheEntry cacheEntry, CacheDAO cacheDao, Connection con)
 	{
@@ -96,11 +101,17 @@ public class CacheStorage implements Storage
 					archive.setHash(archiveEntry.getHash());
 
 					// File data is not necessary for cache updating
+					loadedArchives.put(key(index.getId(), archive.getArchiveId()), archiveEntry);
 				}
 			}
 		}
 	}
 
+	private static long key(int index, int archive)
+	{
+		return (long) index << 32 | archive;
+	}
+
 	@Override
 	public void save(Store store) throws IOException
 	{
@@ -108,24 +119,42 @@ public class CacheStorage implements Storage
 		{
 			IndexEntry entry = cacheDao.createIndex(con, cacheEntry, index.getId(), index.getCrc(), index.getRevision());
 
+			List<ArchiveEntry> archiveEntries = new ArrayList<>(index.getArchives().size());
+			List<ArchiveEntry> newArchives = new ArrayList<>();
+			List<FileData[]> newFiles = new ArrayList<>();
+
 			for (Archive archive : index.getArchives())
 			{
-				ArchiveEntry archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
-					archive.getNameHash(), archive.getCrc(), archive.getRevision());
-				if (archiveEntry == null)
+				ArchiveEntry archiveEntry = loadedArchives.get(key(index.getId(), archive.getArchiveId()));
+				if (archiveEntry == null
+					|| archiveEntry.getNameHash() != archive.getNameHash()
+					|| archiveEntry.getCrc() != archive.getCrc()
+					|| archiveEntry.getRevision() != archive.getRevision())
 				{
-					byte[] hash = archive.getHash();
-					archiveEntry = cacheDao.createArchive(con, entry, archive.getArchiveId(),
-						archive.getNameHash(), archive.getCrc(), archive.getRevision(), hash);
+					// the archive has changed since the last cache, but may match an older one
+					archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
+						archive.getNameHash(), archive.getCrc(), archive.getRevision());
+				}
 
-					for (FileData file : archive.getFileData())
-					{
-						cacheDao.associateFileToArchive(con, archiveEntry, file.getId(), file.getNameHash());
-					}
+				if (archiveEntry == null)
+				{
+					archiveEntry = new ArchiveEntry();
+					archiveEntry.setArchiveId(archive.getArchiveId());
+					archiveEntry.setNameHash(archive.getNameHash());
+					archiveEntry.setCrc(archive.getCrc());
+					archiveEntry.setRevision(archive.getRevision());
+					archiveEntry.setHash(archive.getHash());
+
+					newArchives.add(archiveEntry);
+					newFiles.add(archive.getFileData());
 				}
 
-				cacheDao.associateArchiveToIndex(con, archiveEntry, entry);
+				archiveEntries.add(archiveEntry);
 			}
+
+			cacheDao.createArchives(con, newArchives);
+			cacheDao.associateFilesToArchives(con, newArchives, newFiles);
+			cacheDao.associateArchivesToIndex(con, archiveEntries, entry);
 		}
 	}
 
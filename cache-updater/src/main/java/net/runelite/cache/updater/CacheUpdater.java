@@ -24,19 +24,25 @@
  */
 package net.runelite.cache.updater;
 
+import com.google.common.hash.HashCode;
 import io.minio.MinioClient;
 import io.minio.errors.InvalidEndpointException;
 import io.minio.errors.InvalidPortException;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.runelite.cache.client.CacheClient;
 import net.runelite.cache.client.IndexInfo;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.updater.beans.ArchiveEntry;
 import net.runelite.cache.updater.beans.CacheEntry;
 import net.runelite.cache.updater.beans.IndexEntry;
 import net.runelite.http.api.RuneLiteAPI;
@@ -50,6 +56,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.sql2o.Connection;
+import org.sql2o.ResultSetIterable;
 import org.sql2o.Sql2o;
 
 @SpringBootApplication
@@ -57,6 +64,9 @@ public class CacheUpdater implements CommandLineRunner
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheUpdater.class);
 
+	private static final int UPLOAD_THREADS = 8;
+	private static final int MAX_PENDING_UPLOADS = 256;
+
 	private final Sql2o sql2o;
 	private final MinioClient minioClient;
 
@@ -92,10 +102,39 @@ public class CacheUpdater implements CommandLineRunner
 			Store store = new Store(storage);
 			store.load();
 
-			ExecutorService executor = Executors.newSingleThreadExecutor();
+			// archives already in the store
+			Set<HashCode> uploaded = ConcurrentHashMap.newKeySet();
+			try (ResultSetIterable<ArchiveEntry> archives = cacheDao.findArchiveHashes(con))
+			{
+				for (ArchiveEntry archiveEntry : archives)
+				{
+					if (archiveEntry.getHash() != null)
+					{
+						uploaded.add(HashCode.fromBytes(archiveEntry.getHash()));
+					}
+				}
+			}
+
+			// uploads run in parallel, and once too many are pending the
+			// downloader waits before requesting more archives, which slows
+			// it down to the rate they can be uploaded
+			ExecutorService executor = Executors.newFixedThreadPool(UPLOAD_THREADS);
+			Semaphore pending = new Semaphore(MAX_PENDING_UPLOADS);
+			AtomicInteger failures = new AtomicInteger();
 
 			CacheClient client = new CacheClient(store, rsVersion,
-				(Archive archive, byte[] data) -> executor.submit(new CacheUploader(minioClient, minioBucket, archive, data)));
+				(Archive archive, byte[] data) -> executor.execute(() ->
+				{
+					try
+					{
+						new CacheUploader(minioClient, minioBucket, uploaded, failures, archive, data).run();
+					}
+					finally
+					{
+						pending.release();
+					}
+				}));
+			client.setDownloadPermits(pending);
 
 			client.connect();
 			HandshakeResponseType result = client.handshake().join();
@@ -117,24 +156,44 @@ public class CacheUpdater implements CommandLineRunner
 
 			client.download();
 
+			// ensure objects are added to the store before they become
+			// visible in the database. This also sets the archive hashes
+			// which are saved below.
+			awaitUploads(executor, failures);
+
 			CacheEntry newCache = created ? cache : cacheDao.createCache(con, rsVersion, Instant.now());
 
 			storage.setCacheEntry(newCache);
 			store.save();
 
-			// ensure objects are added to the store before they become
-			// visible in the database
-			executor.shutdown();
-			while (!executor.awaitTermination(1, TimeUnit.SECONDS))
-			{
-				logger.debug("Waiting for termination of executor...");
-			}
-
 			// commit database
 			con.commit();
 		}
 	}
 
+	/**
+	 * Wait for the queued uploads to finish
+	 *
+	 * @param executor executor the uploads were queued on
+	 * @param failures count of failed uploads
+	 * @throws IOException if any upload failed
+	 * @throws InterruptedException
+	 */
+	static void awaitUploads(ExecutorService executor, AtomicInteger failures) throws IOException, InterruptedException
+	{
+		executor.shutdown();
+		while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+		{
+			logger.debug("Waiting for termination of executor...");
+		}
+
+		if (failures.get() > 0)
+		{
+			// archives which failed to upload have no hash, so don't commit a cache referencing them
+			throw new IOException("unable to upload " + failures.get() + " archives, aborting update");
+		}
+	}
+
 	private boolean checkOutOfDate(List<IndexInfo> indexes, List<IndexEntry> dbIndexes)
 	{
 		if (indexes.size() != dbIndexes.size())
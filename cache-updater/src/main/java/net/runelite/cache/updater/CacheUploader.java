@@ -24,6 +24,7 @@
  */
 package net.runelite.cache.updater;
 
+import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.io.BaseEncoding;
 import io.minio.MinioClient;
@@ -35,9 +36,10 @@ import io.minio.errors.InvalidBucketNameException;
 import io.minio.errors.NoResponseException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.runelite.cache.fs.Archive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,13 +51,26 @@ public class CacheUploader implements Runnable
 
 	private final MinioClient minioClient;
 	private final String minioBucket;
+	private final Set<HashCode> uploaded;
+	private final AtomicInteger failures;
 	private final Archive archive;
 	private final byte[] data;
 
-	public CacheUploader(MinioClient minioClient, String minioBucket, Archive archive, byte[] data)
+	/**
+	 * @param minioClient
+	 * @param minioBucket
+	 * @param uploaded hashes of archives which are in the store, or are
+	 * being uploaded. Shared between uploaders.
+	 * @param failures count of failed uploads. Shared between uploaders.
+	 * @param archive
+	 * @param data
+	 */
+	public CacheUploader(MinioClient minioClient, String minioBucket, Set<HashCode> uploaded, AtomicInteger failures, Archive archive, byte[] data)
 	{
 		this.minioClient = minioClient;
 		this.minioBucket = minioBucket;
+		this.uploaded = uploaded;
+		this.failures = failures;
 		this.archive = archive;
 		this.data = data;
 	}
@@ -63,10 +78,16 @@ public class CacheUploader implements Runnable
 	@Override
 	public void run()
 	{
-		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+		HashCode hashCode = Hashing.sha256().hashBytes(data);
+		byte[] hash = hashCode.asBytes();
 		String hashStr = BaseEncoding.base16().encode(hash);
 
-		archive.setHash(hash);
+		if (!uploaded.add(hashCode))
+		{
+			// already exists. If that upload fails the update is aborted.
+			archive.setHash(hash);
+			return;
+		}
 
 		String path = new StringBuilder()
 			.append(hashStr.substring(0, 2))
@@ -76,21 +97,20 @@ public class CacheUploader implements Runnable
 
 		try
 		{
-			try (InputStream in = minioClient.getObject(minioBucket, path))
-			{
-				return; // already exists
-			}
-			catch (ErrorResponseException ex)
-			{
-				// doesn't exist
-			}
-
+			// objects are named by their hash, so if it does exist
+			// this just replaces it with the same data
 			minioClient.putObject(minioBucket, path, new ByteArrayInputStream(data), data.length, "binary/octet-stream");
 		}
 		catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidArgumentException | InvalidBucketNameException | NoResponseException | IOException | InvalidKeyException | NoSuchAlgorithmException | XmlPullParserException ex)
 		{
 			logger.warn("unable to upload data to store", ex);
+			uploaded.remove(hashCode);
+			failures.incrementAndGet();
+			return;
 		}
+
+		// only reference the object once it is in the store
+		archive.setHash(hash);
 	}
 
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.index.FileData;
+import net.runelite.cache.updater.beans.ArchiveEntry;
+import net.runelite.cache.updater.beans.CacheEntry;
+import net.runelite.cache.updater.beans.IndexEntry;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.sql2o.Connection;
+import org.sql2o.ResultSetIterable;
+
+public class CacheStorageTest
+{
+	private static ArchiveEntry archiveEntry(int id, int archiveId, int crc)
+	{
+		ArchiveEntry entry = new ArchiveEntry();
+		entry.setId(id);
+		entry.setArchiveId(archiveId);
+		entry.setCrc(crc);
+		entry.setRevision(1);
+		return entry;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSave() throws Exception
+	{
+		CacheDAO cacheDao = mock(CacheDAO.class);
+		CacheEntry cacheEntry = new CacheEntry();
+
+		IndexEntry indexEntry = new IndexEntry();
+		indexEntry.setId(10);
+		indexEntry.setIndexId(0);
+		when(cacheDao.findIndexesForCache(any(Connection.class), eq(cacheEntry)))
+			.thenReturn(Arrays.asList(indexEntry));
+
+		ArchiveEntry unchanged = archiveEntry(100, 0, 1);
+		ArchiveEntry changed = archiveEntry(101, 1, 2);
+		ResultSetIterable<ArchiveEntry> archives = mock(ResultSetIterable.class);
+		when(archives.iterator())
+			.thenReturn(Arrays.asList(unchanged, changed).iterator());
+		when(cacheDao.findArchivesForIndex(any(Connection.class), eq(indexEntry)))
+			.thenReturn(archives);
+
+		IndexEntry newIndexEntry = new IndexEntry();
+		newIndexEntry.setId(20);
+		newIndexEntry.setIndexId(0);
+		when(cacheDao.createIndex(any(Connection.class), eq(cacheEntry), eq(0), anyInt(), anyInt()))
+			.thenReturn(newIndexEntry);
+
+		CacheStorage storage = new CacheStorage(cacheEntry, cacheDao, null);
+		Store store = new Store(storage);
+		store.load();
+
+		Index index = store.findIndex(0);
+		index.getArchive(1).setCrc(3);
+
+		FileData[] files = new FileData[]{ new FileData(), new FileData() };
+		Archive added = index.addArchive(2);
+		added.setCrc(4);
+		added.setRevision(1);
+		added.setFileData(files);
+
+		store.save();
+
+		// only archives which changed are looked up
+		verify(cacheDao, never()).findArchive(any(Connection.class), any(IndexEntry.class), eq(0), anyInt(), anyInt(), anyInt());
+		verify(cacheDao, times(2)).findArchive(any(Connection.class), eq(newIndexEntry), anyInt(), anyInt(), anyInt(), anyInt());
+
+		// and the new ones are inserted in one batch per index
+		ArgumentCaptor<List> created = ArgumentCaptor.forClass(List.class);
+		verify(cacheDao, times(1)).createArchives(any(Connection.class), created.capture());
+		List<ArchiveEntry> newArchives = created.getValue();
+		assertEquals(2, newArchives.size());
+		assertEquals(1, newArchives.get(0).getArchiveId());
+		assertEquals(3, newArchives.get(0).getCrc());
+		assertEquals(2, newArchives.get(1).getArchiveId());
+
+		ArgumentCaptor<List> newFiles = ArgumentCaptor.forClass(List.class);
+		verify(cacheDao, times(1)).associateFilesToArchives(any(Connection.class), eq(newArchives), newFiles.capture());
+		assertArrayEquals(files, (FileData[]) newFiles.getValue().get(1));
+
+		ArgumentCaptor<List> associated = ArgumentCaptor.forClass(List.class);
+		verify(cacheDao, times(1)).associateArchivesToIndex(any(Connection.class), associated.capture(), eq(newIndexEntry));
+		List<ArchiveEntry> indexArchives = associated.getValue();
+		assertEquals(3, indexArchives.size());
+		assertSame(unchanged, indexArchives.get(0));
+	}
+}
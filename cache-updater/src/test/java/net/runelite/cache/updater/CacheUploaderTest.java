@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.updater;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.minio.MinioClient;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CacheUploaderTest
+{
+	private static final String BUCKET = "cache";
+
+	private MinioClient minioClient;
+	private Set<HashCode> uploaded;
+	private AtomicInteger failures;
+	private Index index;
+
+	@Before
+	public void before()
+	{
+		minioClient = mock(MinioClient.class);
+		uploaded = ConcurrentHashMap.newKeySet();
+		failures = new AtomicInteger();
+		index = new Index(0);
+	}
+
+	@Test
+	public void testDeduplicate() throws Exception
+	{
+		byte[] data = "test".getBytes();
+		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+
+		Archive first = index.addArchive(0);
+		Archive second = index.addArchive(1);
+
+		new CacheUploader(minioClient, BUCKET, uploaded, failures, first, data).run();
+		new CacheUploader(minioClient, BUCKET, uploaded, failures, second, data).run();
+
+		// the same data is only uploaded once, but both archives reference it
+		verify(minioClient, times(1)).putObject(eq(BUCKET), anyString(), any(InputStream.class), eq((long) data.length), anyString());
+		assertArrayEquals(hash, first.getHash());
+		assertArrayEquals(hash, second.getHash());
+		assertEquals(0, failures.get());
+	}
+
+	@Test
+	public void testAlreadyUploaded() throws Exception
+	{
+		byte[] data = "test".getBytes();
+		HashCode hashCode = Hashing.sha256().hashBytes(data);
+		uploaded.add(hashCode);
+
+		Archive archive = index.addArchive(0);
+		new CacheUploader(minioClient, BUCKET, uploaded, failures, archive, data).run();
+
+		verify(minioClient, times(0)).putObject(anyString(), anyString(), any(InputStream.class), anyLong(), anyString());
+		assertArrayEquals(hashCode.asBytes(), archive.getHash());
+	}
+
+	@Test
+	public void testFailedUpload() throws Exception
+	{
+		doThrow(new IOException()).when(minioClient)
+			.putObject(anyString(), anyString(), any(InputStream.class), anyLong(), anyString());
+
+		byte[] data = "test".getBytes();
+		Archive archive = index.addArchive(0);
+		new CacheUploader(minioClient, BUCKET, uploaded, failures, archive, data).run();
+
+		// the archive must not reference an object which isn't in the store
+		assertNull(archive.getHash());
+		assertFalse(uploaded.contains(Hashing.sha256().hashBytes(data)));
+		assertEquals(1, failures.get());
+	}
+}
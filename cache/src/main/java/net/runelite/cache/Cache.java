@@ -27,6 +27,7 @@ package net.runelite.cache;
 import java.io.File;
 import java.io.IOException;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -45,6 +46,7 @@ public class Cache
 		options.addOption(null, "npcs", true, "directory to dump npcs to");
 		options.addOption(null, "objects", true, "directory to dump objects to");
 		options.addOption(null, "sprites", true, "directory to dump sprites to");
+		options.addOption(null, "ndjson", false, "dump items, npcs and objects to a single ndjson file");
 
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd;
@@ -60,6 +62,7 @@ public class Cache
 		}
 
 		String cache = cmd.getOptionValue("cache");
+		boolean ndjson = cmd.hasOption("ndjson");
 
 		Store store = loadStore(cache);
 
@@ -74,7 +77,7 @@ public class Cache
 			}
 
 			System.out.println("Dumping items to " + itemdir);
-			dumpItems(store, new File(itemdir));
+			dumpItems(store, new File(itemdir), ndjson);
 		}
 		else if (cmd.hasOption("npcs"))
 		{
@@ -87,7 +90,7 @@ public class Cache
 			}
 
 			System.out.println("Dumping npcs to " + npcdir);
-			dumpNpcs(store, new File(npcdir));
+			dumpNpcs(store, new File(npcdir), ndjson);
 		}
 		else if (cmd.hasOption("objects"))
 		{
@@ -100,7 +103,7 @@ public class Cache
 			}
 
 			System.out.println("Dumping objects to " + objectdir);
-			dumpObjects(store, new File(objectdir));
+			dumpObjects(store, new File(objectdir), ndjson);
 		}
 		else if (cmd.hasOption("sprites"))
 		{
@@ -123,32 +126,56 @@ public class Cache
 
 	private static Store loadStore(String cache) throws IOException
 	{
-		Store store = new Store(new File(cache));
+		Store store = new Store(new DiskStorage(new File(cache), true));
 		store.load();
 		return store;
 	}
 
-	private static void dumpItems(Store store, File itemdir) throws IOException
+	private static void dumpItems(Store store, File itemdir, boolean ndjson) throws IOException
 	{
 		ItemManager dumper = new ItemManager(store);
 		dumper.load();
-		dumper.export(itemdir);
+		if (ndjson)
+		{
+			itemdir.mkdirs();
+			dumper.exportNdjson(new File(itemdir, "items.ndjson"));
+		}
+		else
+		{
+			dumper.export(itemdir);
+		}
 		dumper.java(itemdir);
 	}
 
-	private static void dumpNpcs(Store store, File npcdir) throws IOException
+	private static void dumpNpcs(Store store, File npcdir, boolean ndjson) throws IOException
 	{
 		NpcManager dumper = new NpcManager(store);
 		dumper.load();
-		dumper.dump(npcdir);
+		if (ndjson)
+		{
+			npcdir.mkdirs();
+			dumper.dumpNdjson(new File(npcdir, "npcs.ndjson"));
+		}
+		else
+		{
+			dumper.dump(npcdir);
+		}
 		dumper.java(npcdir);
 	}
 
-	private static void dumpObjects(Store store, File objectdir) throws IOException
+	private static void dumpObjects(Store store, File objectdir, boolean ndjson) throws IOException
 	{
 		ObjectManager dumper = new ObjectManager(store);
 		dumper.load();
-		dumper.dump(objectdir);
+		if (ndjson)
+		{
+			objectdir.mkdirs();
+			dumper.dumpNdjson(new File(objectdir, "objects.ndjson"));
+		}
+		else
+		{
+			dumper.dump(objectdir);
+		}
 		dumper.java(objectdir);
 	}
 
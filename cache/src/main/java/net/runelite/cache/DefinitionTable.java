@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+
+/**
+ * Definitions of a config archive, indexed by id. Definitions are either
+ * all decoded up front, in parallel, or each decoded the first time it
+ * is requested. This is safe to use from multiple threads.
+ *
+ * @param <T> definition type
+ */
+class DefinitionTable<T>
+{
+	interface Decoder<T>
+	{
+		T load(int id, byte[] data);
+	}
+
+	private final Decoder<T> decoder;
+	private final AtomicReferenceArray<T> definitions;
+	private final byte[][] contents; // file contents by id, kept for decoding on demand
+
+	private DefinitionTable(Decoder<T> decoder, int size)
+	{
+		this.decoder = decoder;
+		this.definitions = new AtomicReferenceArray<>(size);
+		this.contents = new byte[size][];
+	}
+
+	/**
+	 * Load the definitions of a config archive
+	 *
+	 * @param store store to load from
+	 * @param configType config archive to load
+	 * @param decoder decoder for the definitions
+	 * @param lazy whether to defer decoding each definition until it is requested
+	 * @param <T>
+	 * @return
+	 * @throws IOException
+	 */
+	static <T> DefinitionTable<T> load(Store store, ConfigType configType, Decoder<T> decoder, boolean lazy) throws IOException
+	{
+		Storage storage = store.getStorage();
+		Index index = store.getIndex(IndexType.CONFIGS);
+		Archive archive = index.getArchive(configType.getId());
+
+		byte[] archiveData = storage.loadArchive(archive);
+		ArchiveFiles files = archive.getFiles(archiveData);
+
+		int max = -1;
+		for (FSFile f : files.getFiles())
+		{
+			max = Math.max(max, f.getFileId());
+		}
+
+		DefinitionTable<T> table = new DefinitionTable<>(decoder, max + 1);
+		for (FSFile f : files.getFiles())
+		{
+			table.contents[f.getFileId()] = f.getContents();
+		}
+
+		if (!lazy)
+		{
+			files.getFiles().parallelStream()
+				.forEach(f -> table.get(f.getFileId()));
+		}
+
+		return table;
+	}
+
+	T get(int id)
+	{
+		if (id < 0 || id >= contents.length)
+		{
+			return null;
+		}
+
+		T definition = definitions.get(id);
+		if (definition != null)
+		{
+			return definition;
+		}
+
+		byte[] data = contents[id];
+		if (data == null)
+		{
+			return null;
+		}
+
+		// if this races, both decodes are equivalent and the first one wins
+		definitions.compareAndSet(id, null, decoder.load(id, data));
+		return definitions.get(id);
+	}
+
+	/**
+	 * Get all definitions, ordered by id. This decodes any which have not
+	 * been decoded yet.
+	 */
+	List<T> getAll()
+	{
+		List<T> all = new ArrayList<>();
+		for (int id = 0; id < contents.length; ++id)
+		{
+			T definition = get(id);
+			if (definition != null)
+			{
+				all.add(definition);
+			}
+		}
+		return Collections.unmodifiableList(all);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.common.base.Throwables;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+import net.runelite.cache.definitions.exporters.ExportGson;
+
+/**
+ * Helpers for exporting definitions in bulk
+ */
+class ExportHelper
+{
+	// exports are mostly waiting on file writes, so use more threads than cores
+	private static final int THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+	interface ExportTask<T>
+	{
+		void export(T definition) throws IOException;
+	}
+
+	/**
+	 * Run an export task for each definition, in parallel on a bounded
+	 * pool of threads.
+	 *
+	 * @param definitions definitions to export
+	 * @param task task to run for each definition
+	 * @param <T>
+	 * @throws IOException
+	 */
+	static <T> void exportAll(Collection<T> definitions, ExportTask<T> task) throws IOException
+	{
+		ForkJoinPool pool = new ForkJoinPool(THREADS);
+		try
+		{
+			pool.submit(() -> definitions.parallelStream().forEach(definition ->
+			{
+				try
+				{
+					task.export(definition);
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			})).get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			Throwables.throwIfUnchecked(cause);
+			throw new RuntimeException(cause);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Write definitions to a single file as newline delimited json, one
+	 * definition per line. The file is gzipped if its name ends in .gz.
+	 *
+	 * @param definitions definitions to write
+	 * @param file file to write to
+	 * @throws IOException
+	 */
+	static void exportNdjson(Collection<?> definitions, File file) throws IOException
+	{
+		OutputStream out = new FileOutputStream(file);
+		if (file.getName().endsWith(".gz"))
+		{
+			out = new GZIPOutputStream(out, 1 << 16);
+		}
+
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16))
+		{
+			for (Object definition : definitions)
+			{
+				ExportGson.COMPACT.toJson(definition, writer);
+				writer.write('\n');
+			}
+		}
+	}
+}
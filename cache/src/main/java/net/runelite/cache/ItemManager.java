@@ -27,25 +27,17 @@ package net.runelite.cache;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.exporters.ItemExporter;
 import net.runelite.cache.definitions.loaders.ItemLoader;
 import net.runelite.cache.definitions.providers.ItemProvider;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
 public class ItemManager implements ItemProvider
 {
 	private final Store store;
-	private final Map<Integer, ItemDefinition> items = new HashMap<>();
+	private DefinitionTable<ItemDefinition> items;
 
 	public ItemManager(Store store)
 	{
@@ -54,25 +46,24 @@ public class ItemManager implements ItemProvider
 
 	public void load() throws IOException
 	{
-		ItemLoader loader = new ItemLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.ITEM.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(false);
+	}
 
-		for (FSFile f : files.getFiles())
-		{
-			ItemDefinition def = loader.load(f.getFileId(), f.getContents());
-			items.put(f.getFileId(), def);
-		}
+	/**
+	 * Load the definitions
+	 *
+	 * @param lazy whether to defer decoding each definition until it is requested
+	 * @throws IOException
+	 */
+	public void load(boolean lazy) throws IOException
+	{
+		ItemLoader loader = new ItemLoader();
+		items = DefinitionTable.load(store, ConfigType.ITEM, loader::load, lazy);
 	}
 
 	public Collection<ItemDefinition> getItems()
 	{
-		return Collections.unmodifiableCollection(items.values());
+		return items.getAll();
 	}
 
 	public ItemDefinition getItem(int itemId)
@@ -84,13 +75,24 @@ public class ItemManager implements ItemProvider
 	{
 		out.mkdirs();
 
-		for (ItemDefinition def : items.values())
+		ExportHelper.exportAll(items.getAll(), def ->
 		{
 			ItemExporter exporter = new ItemExporter(def);
 
 			File targ = new File(out, def.id + ".json");
 			exporter.exportTo(targ);
-		}
+		});
+	}
+
+	/**
+	 * Write all definitions to a single newline delimited json file
+	 *
+	 * @param file file to write to, gzipped if it ends in .gz
+	 * @throws IOException
+	 */
+	public void exportNdjson(File file) throws IOException
+	{
+		ExportHelper.exportNdjson(items.getAll(), file);
 	}
 
 	public void java(File java) throws IOException
@@ -98,7 +100,7 @@ public class ItemManager implements ItemProvider
 		java.mkdirs();
 		try (IDClass ids = IDClass.create(java, "ItemID"))
 		{
-			for (ItemDefinition def : items.values())
+			for (ItemDefinition def : items.getAll())
 			{
 				if (def.name.equalsIgnoreCase("NULL"))
 				{
@@ -24,13 +24,26 @@
  */
 package net.runelite.cache;
 
+import com.google.common.base.Throwables;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Point;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
 import lombok.Getter;
 import lombok.Setter;
 import net.runelite.cache.definitions.AreaDefinition;
@@ -64,8 +77,9 @@ public class MapImageDumper
 	private static final int MAPICON_MAX_WIDTH = 5; // scale minimap icons down to this size so they fit..
 	private static final int MAPICON_MAX_HEIGHT = 6;
 	private static final int BLEND = 5; // number of surrounding tiles for ground blending
+	private static final int TILE_SIZE = Region.X * MAP_SCALE; // size of a tile in pixels, tiles are one region at the highest zoom
 
-	private static int[] colorPalette = new ColorPalette(0.9d, 0, 512).getColorPalette();
+	private static int[] colorPalette = ColorPalette.forBrightness(0.9d);
 
 	private static int[][] TILE_SHAPE_2D = new int[][]{{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}, {1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1}, {1, 0, 0, 0, 1, 1, 0, 0, 1, 1, 1, 0, 1, 1, 1, 1}, {1, 1, 0, 0, 1, 1, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0}, {0, 0, 1, 1, 0, 0, 1, 1, 0, 0, 0, 1, 0, 0, 0, 1}, {0, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1}, {1, 1, 1, 0, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 1, 1}, {1, 1, 0, 0, 1, 1, 0, 0, 1, 1, 0, 0, 1, 1, 0, 0}, {0, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 1, 1, 0, 0}, {1, 1, 1, 1, 1, 1, 1, 1, 0, 1, 1, 1, 0, 0, 1, 1}, {1, 1, 1, 1, 1, 1, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0}, {0, 0, 0, 0, 0, 0, 1, 1, 0, 1, 1, 1, 0, 1, 1, 1}, {0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 0, 1, 1, 1, 1}};
 	private static int[][] TILE_ROTATION_2D = new int[][]{{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15}, {12, 8, 4, 0, 13, 9, 5, 1, 14, 10, 6, 2, 15, 11, 7, 3}, {15, 14, 13, 12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1, 0}, {3, 7, 11, 15, 2, 6, 10, 14, 1, 5, 9, 13, 0, 4, 8, 12}};
@@ -93,6 +107,10 @@ public class MapImageDumper
 	@Setter
 	private boolean outlineRegions;
 
+	@Getter
+	@Setter
+	private int parallelism = Runtime.getRuntime().availableProcessors(); // threads used to render the map and its tiles
+
 	public MapImageDumper(Store store)
 	{
 		this.store = store;
@@ -117,7 +135,7 @@ public class MapImageDumper
 		loadSprites();
 	}
 
-	public BufferedImage drawMap(int z)
+	public BufferedImage drawMap(int z) throws IOException
 	{
 		int minX = regionLoader.getLowestX().getBaseX();
 		int minY = regionLoader.getLowestY().getBaseY();
@@ -144,6 +162,185 @@ public class MapImageDumper
 		return image;
 	}
 
+	/**
+	 * Render a plane as a pyramid of {@link #TILE_SIZE} square png tiles,
+	 * written to outDir/{zoom}/{x}/{y}.png. The highest zoom has one tile
+	 * per region, and each lower zoom is downscaled from the one above it.
+	 * Tiles are rendered in parallel and written as they are finished, so
+	 * the full map is never held in memory.
+	 *
+	 * @param z plane to render
+	 * @param outDir directory to write the tiles to
+	 * @throws IOException
+	 */
+	public void dumpTiles(int z, File outDir) throws IOException
+	{
+		int lowestRegionX = regionLoader.getLowestX().getRegionX();
+		int highestRegionY = regionLoader.getHighestY().getRegionY();
+
+		int tilesX = regionLoader.getHighestX().getRegionX() - lowestRegionX + 1;
+		int tilesY = highestRegionY - regionLoader.getLowestY().getRegionY() + 1;
+
+		int maxZoom = 0;
+		while (1 << maxZoom < Math.max(tilesX, tilesY))
+		{
+			++maxZoom;
+		}
+
+		logger.info("Map tiles: {} x {} at zoom {}, using {} threads", tilesX, tilesY, maxZoom, parallelism);
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			Set<Point> regionTiles = ConcurrentHashMap.newKeySet();
+			final int baseZoom = maxZoom;
+
+			run(pool, () -> regionLoader.getRegions().parallelStream().forEach(region ->
+			{
+				// tile y increases southward, so invert
+				int x = region.getRegionX() - lowestRegionX;
+				int y = highestRegionY - region.getRegionY();
+
+				writeTile(drawTile(region, z), outDir, baseZoom, x, y);
+				regionTiles.add(new Point(x, y));
+			}));
+
+			Set<Point> tiles = regionTiles;
+
+			for (int zoom = maxZoom - 1; zoom >= 0; --zoom)
+			{
+				Set<Point> parents = new HashSet<>();
+				for (Point tile : tiles)
+				{
+					parents.add(new Point(tile.x / 2, tile.y / 2));
+				}
+
+				final int parentZoom = zoom;
+				run(pool, () -> parents.parallelStream().forEach(tile ->
+					writeTile(downscaleTile(outDir, parentZoom + 1, tile.x, tile.y), outDir, parentZoom, tile.x, tile.y)));
+
+				tiles = parents;
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Draw a single region as a tile, including the objects and icons
+	 * of neighboring regions which overlap it.
+	 */
+	private BufferedImage drawTile(Region region, int z)
+	{
+		BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+
+		// the underlay blending already reads from neighboring regions
+		drawMap(image, 0, 0, z, region);
+
+		Region[] neighbors = new Region[9];
+		int n = 0;
+		for (int dx = -1; dx <= 1; ++dx)
+		{
+			for (int dy = -1; dy <= 1; ++dy)
+			{
+				Region neighbor = regionLoader.findRegionForWorldCoordinates(region.getBaseX() + dx * Region.X, region.getBaseY() + dy * Region.Y);
+				if (neighbor != null)
+				{
+					neighbors[n++] = neighbor;
+				}
+			}
+		}
+
+		for (int i = 0; i < n; ++i)
+		{
+			drawObjects(image, neighbors[i].getBaseX() - region.getBaseX(), region.getBaseY() - neighbors[i].getBaseY(), neighbors[i], z);
+		}
+
+		for (int i = 0; i < n; ++i)
+		{
+			drawMapIcons(image, neighbors[i].getBaseX() - region.getBaseX(), region.getBaseY() - neighbors[i].getBaseY(), neighbors[i], z);
+		}
+
+		return image;
+	}
+
+	static BufferedImage downscaleTile(File outDir, int zoom, int x, int y)
+	{
+		BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+		for (int dx = 0; dx < 2; ++dx)
+		{
+			for (int dy = 0; dy < 2; ++dy)
+			{
+				File file = tileFile(outDir, zoom, x * 2 + dx, y * 2 + dy);
+				if (!file.exists())
+				{
+					continue;
+				}
+
+				try
+				{
+					BufferedImage tile = ImageIO.read(file);
+					graphics.drawImage(tile, dx * TILE_SIZE / 2, dy * TILE_SIZE / 2, TILE_SIZE / 2, TILE_SIZE / 2, null);
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}
+		}
+
+		graphics.dispose();
+		return image;
+	}
+
+	static File tileFile(File outDir, int zoom, int x, int y)
+	{
+		return new File(outDir, zoom + File.separator + x + File.separator + y + ".png");
+	}
+
+	static void writeTile(BufferedImage image, File outDir, int zoom, int x, int y)
+	{
+		File file = tileFile(outDir, zoom, x, y);
+		file.getParentFile().mkdirs();
+
+		try
+		{
+			ImageIO.write(image, "png", file);
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static void run(ForkJoinPool pool, Runnable task) throws IOException
+	{
+		try
+		{
+			pool.submit(task).get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			Throwables.throwIfUnchecked(cause);
+			throw new RuntimeException(cause);
+		}
+	}
+
 	public BufferedImage drawRegion(Region region, int z)
 	{
 		int pixelsX = Region.X * MAP_SCALE;
@@ -170,6 +367,10 @@ public class MapImageDumper
 			drawMap(above, region, z + 1);
 		}
 
+		// write directly to the image's raster, this is much faster than setRGB
+		int[] raster = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int width = image.getWidth();
+
 		for (int x = 0; x < Region.X; ++x)
 		{
 			for (int y = 0; y < Region.Y; ++y)
@@ -179,48 +380,66 @@ public class MapImageDumper
 				int tileSetting = region.getTileSetting(z, x, Region.Y - y - 1);
 				if (!isBridge && ((tileSetting & 24) == 0))
 				{
-					drawTile(image, map, drawBaseX, drawBaseY, x, y);
+					drawTile(raster, width, map, drawBaseX, drawBaseY, x, y);
 				}
 
 				if (z < 3 && isBridge) // client also has a check for &8 != 0 here
 				{
-					drawTile(image, above, drawBaseX, drawBaseY, x, y);
+					drawTile(raster, width, above, drawBaseX, drawBaseY, x, y);
 				}
 			}
 		}
 	}
 
-	private void drawMap(BufferedImage image, int z)
+	private void drawMap(BufferedImage image, int z) throws IOException
 	{
-		for (Region region : regionLoader.getRegions())
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
 		{
-			int baseX = region.getBaseX();
-			int baseY = region.getBaseY();
+			// regions only draw their own area, so they can be drawn concurrently
+			run(pool, () -> regionLoader.getRegions().parallelStream().forEach(region ->
+			{
+				int baseX = region.getBaseX();
+				int baseY = region.getBaseY();
 
-			// to pixel X
-			int drawBaseX = baseX - regionLoader.getLowestX().getBaseX();
+				// to pixel X
+				int drawBaseX = baseX - regionLoader.getLowestX().getBaseX();
 
-			// to pixel Y. top most y is 0, but the top most
-			// region has the greatest y, so invert
-			int drawBaseY = regionLoader.getHighestY().getBaseY() - baseY;
+				// to pixel Y. top most y is 0, but the top most
+				// region has the greatest y, so invert
+				int drawBaseY = regionLoader.getHighestY().getBaseY() - baseY;
 
-			drawMap(image, drawBaseX, drawBaseY, z, region);
+				drawMap(image, drawBaseX, drawBaseY, z, region);
+			}));
+		}
+		finally
+		{
+			pool.shutdown();
 		}
 	}
 
-	private void drawTile(BufferedImage to, int[][] pixels, int drawBaseX, int drawBaseY, int x, int y)
+	private void drawTile(int[] to, int width, int[][] pixels, int drawBaseX, int drawBaseY, int x, int y)
 	{
 		for (int i = 0; i < MAP_SCALE; ++i)
 		{
 			for (int j = 0; j < MAP_SCALE; ++j)
 			{
-				to.setRGB(drawBaseX * MAP_SCALE + x * MAP_SCALE + i,
-					drawBaseY * MAP_SCALE + y * MAP_SCALE + j,
-					pixels[x * MAP_SCALE + i][y * MAP_SCALE + j]);
+				int px = drawBaseX * MAP_SCALE + x * MAP_SCALE + i;
+				int py = drawBaseY * MAP_SCALE + y * MAP_SCALE + j;
+				to[py * width + px] = pixels[x * MAP_SCALE + i][y * MAP_SCALE + j];
 			}
 		}
 	}
 
+	private static void setRGB(BufferedImage image, int x, int y, int rgb)
+	{
+		// objects of neighboring regions are drawn partially outside of tiles
+		if (x >= 0 && y >= 0 && x < image.getWidth() && y < image.getHeight())
+		{
+			image.setRGB(x, y, rgb);
+		}
+	}
+
 	private void drawMap(int[][] pixels, Region region, int z)
 	{
 		int baseX = region.getBaseX();
@@ -554,31 +773,31 @@ public class MapImageDumper
 					{
 						if (rotation == 0)
 						{
-							image.setRGB(drawX + 0, drawY + 0, rgb);
-							image.setRGB(drawX + 0, drawY + 1, rgb);
-							image.setRGB(drawX + 0, drawY + 2, rgb);
-							image.setRGB(drawX + 0, drawY + 3, rgb);
+							setRGB(image, drawX + 0, drawY + 0, rgb);
+							setRGB(image, drawX + 0, drawY + 1, rgb);
+							setRGB(image, drawX + 0, drawY + 2, rgb);
+							setRGB(image, drawX + 0, drawY + 3, rgb);
 						}
 						else if (rotation == 1)
 						{
-							image.setRGB(drawX + 0, drawY + 0, rgb);
-							image.setRGB(drawX + 1, drawY + 0, rgb);
-							image.setRGB(drawX + 2, drawY + 0, rgb);
-							image.setRGB(drawX + 3, drawY + 0, rgb);
+							setRGB(image, drawX + 0, drawY + 0, rgb);
+							setRGB(image, drawX + 1, drawY + 0, rgb);
+							setRGB(image, drawX + 2, drawY + 0, rgb);
+							setRGB(image, drawX + 3, drawY + 0, rgb);
 						}
 						else if (rotation == 2)
 						{
-							image.setRGB(drawX + 3, drawY + 0, rgb);
-							image.setRGB(drawX + 3, drawY + 1, rgb);
-							image.setRGB(drawX + 3, drawY + 2, rgb);
-							image.setRGB(drawX + 3, drawY + 3, rgb);
+							setRGB(image, drawX + 3, drawY + 0, rgb);
+							setRGB(image, drawX + 3, drawY + 1, rgb);
+							setRGB(image, drawX + 3, drawY + 2, rgb);
+							setRGB(image, drawX + 3, drawY + 3, rgb);
 						}
 						else if (rotation == 3)
 						{
-							image.setRGB(drawX + 0, drawY + 3, rgb);
-							image.setRGB(drawX + 1, drawY + 3, rgb);
-							image.setRGB(drawX + 2, drawY + 3, rgb);
-							image.setRGB(drawX + 3, drawY + 3, rgb);
+							setRGB(image, drawX + 0, drawY + 3, rgb);
+							setRGB(image, drawX + 1, drawY + 3, rgb);
+							setRGB(image, drawX + 2, drawY + 3, rgb);
+							setRGB(image, drawX + 3, drawY + 3, rgb);
 						}
 					}
 
@@ -586,19 +805,19 @@ public class MapImageDumper
 					{
 						if (rotation == 0)
 						{
-							image.setRGB(drawX + 0, drawY + 0, rgb);
+							setRGB(image, drawX + 0, drawY + 0, rgb);
 						}
 						else if (rotation == 1)
 						{
-							image.setRGB(drawX + 3, drawY + 0, rgb);
+							setRGB(image, drawX + 3, drawY + 0, rgb);
 						}
 						else if (rotation == 2)
 						{
-							image.setRGB(drawX + 3, drawY + 3, rgb);
+							setRGB(image, drawX + 3, drawY + 3, rgb);
 						}
 						else if (rotation == 3)
 						{
-							image.setRGB(drawX + 0, drawY + 3, rgb);
+							setRGB(image, drawX + 0, drawY + 3, rgb);
 						}
 					}
 
@@ -606,31 +825,31 @@ public class MapImageDumper
 					{
 						if (rotation == 3)
 						{
-							image.setRGB(drawX + 0, drawY + 0, rgb);
-							image.setRGB(drawX + 0, drawY + 1, rgb);
-							image.setRGB(drawX + 0, drawY + 2, rgb);
-							image.setRGB(drawX + 0, drawY + 3, rgb);
+							setRGB(image, drawX + 0, drawY + 0, rgb);
+							setRGB(image, drawX + 0, drawY + 1, rgb);
+							setRGB(image, drawX + 0, drawY + 2, rgb);
+							setRGB(image, drawX + 0, drawY + 3, rgb);
 						}
 						else if (rotation == 0)
 						{
-							image.setRGB(drawX + 0, drawY + 0, rgb);
-							image.setRGB(drawX + 1, drawY + 0, rgb);
-							image.setRGB(drawX + 2, drawY + 0, rgb);
-							image.setRGB(drawX + 3, drawY + 0, rgb);
+							setRGB(image, drawX + 0, drawY + 0, rgb);
+							setRGB(image, drawX + 1, drawY + 0, rgb);
+							setRGB(image, drawX + 2, drawY + 0, rgb);
+							setRGB(image, drawX + 3, drawY + 0, rgb);
 						}
 						else if (rotation == 1)
 						{
-							image.setRGB(drawX + 3, drawY + 0, rgb);
-							image.setRGB(drawX + 3, drawY + 1, rgb);
-							image.setRGB(drawX + 3, drawY + 2, rgb);
-							image.setRGB(drawX + 3, drawY + 3, rgb);
+							setRGB(image, drawX + 3, drawY + 0, rgb);
+							setRGB(image, drawX + 3, drawY + 1, rgb);
+							setRGB(image, drawX + 3, drawY + 2, rgb);
+							setRGB(image, drawX + 3, drawY + 3, rgb);
 						}
 						else if (rotation == 2)
 						{
-							image.setRGB(drawX + 0, drawY + 3, rgb);
-							image.setRGB(drawX + 1, drawY + 3, rgb);
-							image.setRGB(drawX + 2, drawY + 3, rgb);
-							image.setRGB(drawX + 3, drawY + 3, rgb);
+							setRGB(image, drawX + 0, drawY + 3, rgb);
+							setRGB(image, drawX + 1, drawY + 3, rgb);
+							setRGB(image, drawX + 2, drawY + 3, rgb);
+							setRGB(image, drawX + 3, drawY + 3, rgb);
 						}
 					}
 				}
@@ -663,17 +882,17 @@ public class MapImageDumper
 
 				if (rotation != 0 && rotation != 2)
 				{
-					image.setRGB(drawX + 0, drawY + 0, rgb);
-					image.setRGB(drawX + 1, drawY + 1, rgb);
-					image.setRGB(drawX + 2, drawY + 2, rgb);
-					image.setRGB(drawX + 3, drawY + 3, rgb);
+					setRGB(image, drawX + 0, drawY + 0, rgb);
+					setRGB(image, drawX + 1, drawY + 1, rgb);
+					setRGB(image, drawX + 2, drawY + 2, rgb);
+					setRGB(image, drawX + 3, drawY + 3, rgb);
 				}
 				else
 				{
-					image.setRGB(drawX + 0, drawY + 3, rgb);
-					image.setRGB(drawX + 1, drawY + 2, rgb);
-					image.setRGB(drawX + 2, drawY + 1, rgb);
-					image.setRGB(drawX + 3, drawY + 0, rgb);
+					setRGB(image, drawX + 0, drawY + 3, rgb);
+					setRGB(image, drawX + 1, drawY + 2, rgb);
+					setRGB(image, drawX + 2, drawY + 1, rgb);
+					setRGB(image, drawX + 3, drawY + 0, rgb);
 				}
 			}
 			else if (type == 22 || (type >= 9 && type <= 11))
@@ -893,8 +1112,8 @@ public class MapImageDumper
 
 	private void loadRegions(Store store) throws IOException
 	{
+		// regions are loaded when the map is drawn, or on demand when drawing single regions
 		regionLoader = new RegionLoader(store);
-		regionLoader.loadRegions();
 		regionLoader.calculateBounds();
 
 		logger.info("North most region: {}", regionLoader.getLowestY().getBaseY());
@@ -974,8 +1193,12 @@ public class MapImageDumper
 					BufferedImage spriteImage = new BufferedImage(sprite.getWidth(), sprite.getHeight(), BufferedImage.TYPE_INT_ARGB);
 					spriteImage.setRGB(0, 0, sprite.getWidth(), sprite.getHeight(), sprite.getPixels(), 0, sprite.getWidth());
 
-					// scale image down so it fits
-					Image scaledImage = spriteImage.getScaledInstance(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, 0);
+					// scale image down so it fits. This is drawn eagerly, rather than with
+					// getScaledInstance, so that it can be drawn from multiple threads
+					BufferedImage scaledImage = new BufferedImage(MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+					Graphics2D graphics = scaledImage.createGraphics();
+					graphics.drawImage(spriteImage, 0, 0, MAPICON_MAX_WIDTH, MAPICON_MAX_HEIGHT, null);
+					graphics.dispose();
 
 					assert scaledMapIcons.containsKey(sprite.getFrame()) == false;
 					scaledMapIcons.put(sprite.getFrame(), scaledImage);
@@ -27,24 +27,16 @@ package net.runelite.cache;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.NpcDefinition;
 import net.runelite.cache.definitions.exporters.NpcExporter;
 import net.runelite.cache.definitions.loaders.NpcLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
 public class NpcManager
 {
 	private final Store store;
-	private final Map<Integer, NpcDefinition> npcs = new HashMap<>();
+	private DefinitionTable<NpcDefinition> npcs;
 
 	public NpcManager(Store store)
 	{
@@ -53,25 +45,24 @@ public class NpcManager
 
 	public void load() throws IOException
 	{
-		NpcLoader loader = new NpcLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.NPC.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(false);
+	}
 
-		for (FSFile f : files.getFiles())
-		{
-			NpcDefinition npc = loader.load(f.getFileId(), f.getContents());
-			npcs.put(f.getFileId(), npc);
-		}
+	/**
+	 * Load the definitions
+	 *
+	 * @param lazy whether to defer decoding each definition until it is requested
+	 * @throws IOException
+	 */
+	public void load(boolean lazy) throws IOException
+	{
+		NpcLoader loader = new NpcLoader();
+		npcs = DefinitionTable.load(store, ConfigType.NPC, loader::load, lazy);
 	}
 
 	public Collection<NpcDefinition> getNpcs()
 	{
-		return Collections.unmodifiableCollection(npcs.values());
+		return npcs.getAll();
 	}
 
 	public NpcDefinition get(int npcId)
@@ -83,13 +74,24 @@ public class NpcManager
 	{
 		out.mkdirs();
 
-		for (NpcDefinition def : npcs.values())
+		ExportHelper.exportAll(npcs.getAll(), def ->
 		{
 			NpcExporter exporter = new NpcExporter(def);
 
 			File targ = new File(out, def.id + ".json");
 			exporter.exportTo(targ);
-		}
+		});
+	}
+
+	/**
+	 * Write all definitions to a single newline delimited json file
+	 *
+	 * @param file file to write to, gzipped if it ends in .gz
+	 * @throws IOException
+	 */
+	public void dumpNdjson(File file) throws IOException
+	{
+		ExportHelper.exportNdjson(npcs.getAll(), file);
 	}
 
 	public void java(File java) throws IOException
@@ -97,7 +99,7 @@ public class NpcManager
 		java.mkdirs();
 		try (IDClass ids = IDClass.create(java, "NpcID"))
 		{
-			for (NpcDefinition def : npcs.values())
+			for (NpcDefinition def : npcs.getAll())
 			{
 				if (def.name.equalsIgnoreCase("NULL"))
 				{
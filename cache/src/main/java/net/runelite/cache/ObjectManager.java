@@ -27,24 +27,16 @@ package net.runelite.cache;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.ObjectDefinition;
 import net.runelite.cache.definitions.exporters.ObjectExporter;
 import net.runelite.cache.definitions.loaders.ObjectLoader;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
 public class ObjectManager
 {
 	private final Store store;
-	private final Map<Integer, ObjectDefinition> objects = new HashMap<>();
+	private DefinitionTable<ObjectDefinition> objects;
 
 	public ObjectManager(Store store)
 	{
@@ -53,25 +45,24 @@ public class ObjectManager
 
 	public void load() throws IOException
 	{
-		ObjectLoader loader = new ObjectLoader();
-
-		Storage storage = store.getStorage();
-		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.OBJECT.getId());
-
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		load(false);
+	}
 
-		for (FSFile f : files.getFiles())
-		{
-			ObjectDefinition def = loader.load(f.getFileId(), f.getContents());
-			objects.put(f.getFileId(), def);
-		}
+	/**
+	 * Load the definitions
+	 *
+	 * @param lazy whether to defer decoding each definition until it is requested
+	 * @throws IOException
+	 */
+	public void load(boolean lazy) throws IOException
+	{
+		ObjectLoader loader = new ObjectLoader();
+		objects = DefinitionTable.load(store, ConfigType.OBJECT, loader::load, lazy);
 	}
 
 	public Collection<ObjectDefinition> getObjects()
 	{
-		return Collections.unmodifiableCollection(objects.values());
+		return objects.getAll();
 	}
 
 	public ObjectDefinition getObject(int id)
@@ -83,13 +74,24 @@ public class ObjectManager
 	{
 		out.mkdirs();
 
-		for (ObjectDefinition def : objects.values())
+		ExportHelper.exportAll(objects.getAll(), def ->
 		{
 			ObjectExporter exporter = new ObjectExporter(def);
 
 			File targ = new File(out, def.getId() + ".json");
 			exporter.exportTo(targ);
-		}
+		});
+	}
+
+	/**
+	 * Write all definitions to a single newline delimited json file
+	 *
+	 * @param file file to write to, gzipped if it ends in .gz
+	 * @throws IOException
+	 */
+	public void dumpNdjson(File file) throws IOException
+	{
+		ExportHelper.exportNdjson(objects.getAll(), file);
 	}
 
 	public void java(File java) throws IOException
@@ -99,7 +101,7 @@ public class ObjectManager
 		{
 			try (IDClass nulls = IDClass.create(java, "NullObjectID"))
 			{
-				for (ObjectDefinition def : objects.values())
+				for (ObjectDefinition def : objects.getAll())
 				{
 					if ("null".equals(def.getName()))
 					{
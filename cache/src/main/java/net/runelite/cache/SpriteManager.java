@@ -29,6 +29,7 @@ import com.google.common.collect.Multimap;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import net.runelite.cache.definitions.SpriteDefinition;
@@ -95,19 +96,20 @@ public class SpriteManager implements SpriteProvider
 
 	public void export(File outDir) throws IOException
 	{
-		for (SpriteDefinition sprite : sprites.values())
+		// copy, as linked list values split poorly for parallel streams
+		ExportHelper.exportAll(new ArrayList<>(sprites.values()), sprite ->
 		{
 			// I don't know why this happens
 			if (sprite.getHeight() <= 0 || sprite.getWidth() <= 0)
 			{
-				continue;
+				return;
 			}
 
 			SpriteExporter exporter = new SpriteExporter(sprite);
 			File png = new File(outDir, sprite.getId() + "-" + sprite.getFrame() + ".png");
 
 			exporter.exportTo(png);
-		}
+		});
 	}
 
 	@Override
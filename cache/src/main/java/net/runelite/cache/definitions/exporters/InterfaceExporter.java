@@ -24,8 +24,7 @@
  */
 package net.runelite.cache.definitions.exporters;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -34,27 +33,22 @@ import net.runelite.cache.definitions.InterfaceDefinition;
 public class InterfaceExporter
 {
 	private final InterfaceDefinition item;
-	private final Gson gson;
 
 	public InterfaceExporter(InterfaceDefinition item)
 	{
 		this.item = item;
-
-		GsonBuilder builder = new GsonBuilder()
-			.setPrettyPrinting();
-		gson = builder.create();
 	}
 
 	public String export()
 	{
-		return gson.toJson(item);
+		return ExportGson.PRETTY.toJson(item);
 	}
 
 	public void exportTo(File file) throws IOException
 	{
-		try (FileWriter fw = new FileWriter(file))
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file)))
 		{
-			fw.write(export());
+			ExportGson.PRETTY.toJson(item, writer);
 		}
 	}
 }
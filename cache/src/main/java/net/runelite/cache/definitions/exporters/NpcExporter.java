@@ -24,8 +24,7 @@
  */
 package net.runelite.cache.definitions.exporters;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -34,27 +33,22 @@ import net.runelite.cache.definitions.NpcDefinition;
 public class NpcExporter
 {
 	private final NpcDefinition npc;
-	private final Gson gson;
 
 	public NpcExporter(NpcDefinition npc)
 	{
 		this.npc = npc;
-
-		GsonBuilder builder = new GsonBuilder()
-			.setPrettyPrinting();
-		gson = builder.create();
 	}
 
 	public String export()
 	{
-		return gson.toJson(npc);
+		return ExportGson.PRETTY.toJson(npc);
 	}
 
 	public void exportTo(File file) throws IOException
 	{
-		try (FileWriter fw = new FileWriter(file))
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file)))
 		{
-			fw.write(export());
+			ExportGson.PRETTY.toJson(npc, writer);
 		}
 	}
 }
@@ -170,6 +170,7 @@ public class Archive
 	public void setNameHash(int nameHash)
 	{
 		this.nameHash = nameHash;
+		index.archiveRenamed();
 	}
 
 	public int getCrc()
@@ -180,6 +181,7 @@ public class Archive
 	public void setCrc(int crc)
 	{
 		this.crc = crc;
+		index.setDirty(true);
 	}
 
 	public int getRevision()
@@ -190,6 +192,7 @@ public class Archive
 	public void setRevision(int revision)
 	{
 		this.revision = revision;
+		index.setDirty(true);
 	}
 
 	public int getCompression()
@@ -210,6 +213,7 @@ public class Archive
 	public void setFileData(FileData[] fileData)
 	{
 		this.fileData = fileData;
+		index.setDirty(true);
 	}
 
 	public byte[] getHash()
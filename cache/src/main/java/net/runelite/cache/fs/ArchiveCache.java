@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+
+/**
+ * A cache of packed archive data, bounded by the total size of the data.
+ * Entries are keyed on the content of the archive, either its crc or its
+ * sha256 hash, so a modified archive is never served from a stale entry.
+ * <p>
+ * Returned arrays are shared between callers and must not be modified.
+ */
+public class ArchiveCache
+{
+	private final Cache<Object, byte[]> cache;
+
+	/**
+	 * @param maximumBytes maximum total size of the cached archives
+	 */
+	public ArchiveCache(long maximumBytes)
+	{
+		cache = CacheBuilder.newBuilder()
+			.maximumWeight(maximumBytes)
+			.weigher((Object key, byte[] data) -> data.length)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * Get an archive, loading it if it is not cached
+	 *
+	 * @param index index id
+	 * @param archive archive id
+	 * @param crc crc of the archive data
+	 * @param loader loads the archive, returning null if it does not exist
+	 * @return the archive data, or null if the loader returned null
+	 * @throws IOException
+	 */
+	public byte[] get(int index, int archive, int crc, ArchiveLoader loader) throws IOException
+	{
+		return get(new ArchiveKey(index, archive, crc), loader);
+	}
+
+	/**
+	 * Get an archive, loading it if it is not cached
+	 *
+	 * @param hash sha256 of the archive data
+	 * @param loader loads the archive, returning null if it does not exist
+	 * @return the archive data, or null if the loader returned null
+	 * @throws IOException
+	 */
+	public byte[] get(byte[] hash, ArchiveLoader loader) throws IOException
+	{
+		return get(HashCode.fromBytes(hash), loader);
+	}
+
+	private byte[] get(Object key, ArchiveLoader loader) throws IOException
+	{
+		byte[] data = cache.getIfPresent(key);
+		if (data == null)
+		{
+			// missing archives are not cached
+			data = loader.load();
+			if (data != null)
+			{
+				cache.put(key, data);
+			}
+		}
+		return data;
+	}
+
+	public void invalidate(int index, int archive, int crc)
+	{
+		cache.invalidate(new ArchiveKey(index, archive, crc));
+	}
+
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+
+	public CacheStats stats()
+	{
+		return cache.stats();
+	}
+
+	@FunctionalInterface
+	public interface ArchiveLoader
+	{
+		byte[] load() throws IOException;
+	}
+
+	private static class ArchiveKey
+	{
+		private final int index;
+		private final int archive;
+		private final int crc;
+
+		ArchiveKey(int index, int archive, int crc)
+		{
+			this.index = index;
+			this.archive = archive;
+			this.crc = crc;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hash = 7;
+			hash = 31 * hash + this.index;
+			hash = 31 * hash + this.archive;
+			hash = 31 * hash + this.crc;
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof ArchiveKey))
+			{
+				return false;
+			}
+			final ArchiveKey other = (ArchiveKey) obj;
+			return index == other.index
+				&& archive == other.archive
+				&& crc == other.crc;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.IOException;
+
+/**
+ * Storage which caches packed archives loaded from another storage
+ */
+public class CachingStorage implements Storage
+{
+	private final Storage storage;
+	private final ArchiveCache cache;
+
+	public CachingStorage(Storage storage, long maximumBytes)
+	{
+		this(storage, new ArchiveCache(maximumBytes));
+	}
+
+	public CachingStorage(Storage storage, ArchiveCache cache)
+	{
+		this.storage = storage;
+		this.cache = cache;
+	}
+
+	/**
+	 * @return the underlying storage
+	 */
+	public Storage getStorage()
+	{
+		return storage;
+	}
+
+	public ArchiveCache getCache()
+	{
+		return cache;
+	}
+
+	@Override
+	public void init(Store store) throws IOException
+	{
+		storage.init(store);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		cache.invalidateAll();
+		storage.close();
+	}
+
+	@Override
+	public void load(Store store) throws IOException
+	{
+		storage.load(store);
+	}
+
+	@Override
+	public void loadIndex(Index index) throws IOException
+	{
+		storage.loadIndex(index);
+	}
+
+	@Override
+	public void save(Store store) throws IOException
+	{
+		storage.save(store);
+	}
+
+	/**
+	 * Load an archive. The returned array is shared and must not be modified.
+	 */
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
+	{
+		return cache.get(archive.getIndex().getId(), archive.getArchiveId(), archive.getCrc(),
+			() -> storage.loadArchive(archive));
+	}
+
+	@Override
+	public void saveArchive(Archive archive, byte[] data) throws IOException
+	{
+		cache.invalidate(archive.getIndex().getId(), archive.getArchiveId(), archive.getCrc());
+		storage.saveArchive(archive, data);
+	}
+}
@@ -27,8 +27,8 @@ package net.runelite.cache.fs;
 import static com.google.common.primitives.Bytes.concat;
 import com.google.common.primitives.Ints;
 import java.io.IOException;
+import java.util.Arrays;
 import net.runelite.cache.fs.jagex.CompressionType;
-import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
 import net.runelite.cache.util.BZip2;
 import net.runelite.cache.util.Crc32;
@@ -41,6 +41,9 @@ public class Container
 {
 	private static final Logger logger = LoggerFactory.getLogger(Container.class);
 
+	private static final long BZIP2_BLOCK_MAGIC = 0x314159265359L;
+	private static final long BZIP2_END_MAGIC = 0x177245385090L;
+
 	public byte[] data;
 	public int compression; // compression
 	public int revision;
@@ -92,94 +95,196 @@ public class Container
 
 	public static Container decompress(byte[] b, int[] keys) throws IOException
 	{
-		InputStream stream = new InputStream(b);
-
-		int compression = stream.readUnsignedByte();
-		int compressedLength = stream.readInt();
-		if (compressedLength < 0 || compressedLength > 1000000)
+		if (keys != null)
 		{
-			throw new RuntimeException("Invalid data");
+			// decryption is done in place, so don't clobber the caller's data
+			b = b.clone();
 		}
 
-		Crc32 crc32 = new Crc32();
-		crc32.update(b, 0, 5); // compression + length
+		return decompress(b, 0, b.length, keys);
+	}
 
-		byte[] data;
-		int revision = -1;
-		switch (compression)
+	/**
+	 * Find which of a set of candidate keys decrypts a container.
+	 *
+	 * @param b container
+	 * @param candidates candidate xtea keys
+	 * @return index of the first key which decrypts the container, or -1
+	 * @see #checkKey(byte[], int[])
+	 */
+	public static int findKey(byte[] b, int[][] candidates)
+	{
+		for (int i = 0; i < candidates.length; ++i)
 		{
-			case CompressionType.NONE:
+			if (checkKey(b, candidates[i]))
 			{
-				byte[] encryptedData = new byte[compressedLength];
-				stream.readBytes(encryptedData, 0, compressedLength);
+				return i;
+			}
+		}
+		return -1;
+	}
 
-				crc32.update(encryptedData, 0, compressedLength);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
+	/**
+	 * Check whether keys decrypt a container, without modifying it. Only
+	 * the first blocks of a compressed container are decrypted, to check
+	 * the decompressed length and the header of the compressed stream.
+	 * Containers which have no such header are fully decompressed.
+	 *
+	 * @param b container
+	 * @param keys xtea keys
+	 * @return
+	 */
+	public static boolean checkKey(byte[] b, int[] keys)
+	{
+		if (b.length < 5)
+		{
+			return false;
+		}
 
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
+		int compression = b[0] & 0xFF;
+		int compressedLength = Ints.fromBytes(b[1], b[2], b[3], b[4]);
+		if (compressedLength < 0 || compressedLength > 1000000)
+		{
+			return false;
+		}
 
-				data = decryptedData;
+		int encryptedLength = compression == CompressionType.NONE ? compressedLength : compressedLength + 4;
+		if (5 + encryptedLength > b.length)
+		{
+			return false;
+		}
 
+		// decompressed length followed by the start of the compressed stream
+		int headerLength;
+		switch (compression)
+		{
+			case CompressionType.BZ2:
+				headerLength = 16; // block magic
+				break;
+			case CompressionType.GZ:
+				headerLength = 8; // magic, method and flags
 				break;
+			default:
+				headerLength = -1;
+				break;
+		}
+
+		if (headerLength == -1 || encryptedLength < headerLength)
+		{
+			try
+			{
+				decompress(b, keys);
+				return true;
 			}
-			case CompressionType.BZ2:
+			catch (IOException ex)
 			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
+				return false;
+			}
+		}
 
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
+		byte[] header = Arrays.copyOfRange(b, 5, 5 + headerLength);
+		new Xtea(keys).decrypt(header, 0, headerLength);
 
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
+		int decompressedLength = Ints.fromBytes(header[0], header[1], header[2], header[3]);
+		if (decompressedLength < 0)
+		{
+			return false;
+		}
 
-				stream = new InputStream(decryptedData);
+		if (compression == CompressionType.BZ2)
+		{
+			return isBzip2Start(header, 4, decompressedLength);
+		}
+		else
+		{
+			// reserved flag bits must be clear
+			return header[4] == (byte) 0x1f && header[5] == (byte) 0x8b && header[6] == 8
+				&& (header[7] & 0xE0) == 0;
+		}
+	}
 
-				int decompressedLength = stream.readInt();
-				data = BZip2.decompress(stream.getRemaining(), compressedLength);
+	/**
+	 * Decompress a container from a slice of an array. If keys are
+	 * given, the encrypted portion of the slice is decrypted in place.
+	 *
+	 * @param b array holding the container
+	 * @param offset offset of the container
+	 * @param length length of the container, including the revision if present
+	 * @param keys xtea keys, or null
+	 * @return
+	 * @throws IOException
+	 */
+	public static Container decompress(byte[] b, int offset, int length, int[] keys) throws IOException
+	{
+		if (length < 5)
+		{
+			throw new IOException("Truncated container");
+		}
 
-				if (data == null)
-				{
-					return null;
-				}
+		int compression = b[offset] & 0xFF;
+		int compressedLength = Ints.fromBytes(b[offset + 1], b[offset + 2], b[offset + 3], b[offset + 4]);
+		if (compressedLength < 0 || compressedLength > 1000000)
+		{
+			throw new RuntimeException("Invalid data");
+		}
 
-				assert data.length == decompressedLength;
+		// compressed containers are prefixed with their decompressed length
+		int encryptedLength = compression == CompressionType.NONE ? compressedLength : compressedLength + 4;
+		if (5 + encryptedLength > length)
+		{
+			throw new IOException("Truncated container");
+		}
 
-				break;
-			}
-			case CompressionType.GZ:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
+		int pos = offset + 5;
 
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
+		Crc32 crc32 = new Crc32();
+		crc32.update(b, offset, 5 + encryptedLength); // compression + length + data
 
-				if (stream.remaining() >= 2)
-				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
-				}
+		if (keys != null)
+		{
+			Xtea xtea = new Xtea(keys);
+			xtea.decrypt(b, pos, encryptedLength);
+		}
 
-				stream = new InputStream(decryptedData);
+		int revision = -1;
+		if (length - 5 - encryptedLength >= 2)
+		{
+			int revisionPos = pos + encryptedLength;
+			revision = (b[revisionPos] & 0xFF) << 8 | (b[revisionPos + 1] & 0xFF);
+		}
 
-				int decompressedLength = stream.readInt();
-				data = GZip.decompress(stream.getRemaining(), compressedLength);
+		byte[] data;
+		switch (compression)
+		{
+			case CompressionType.NONE:
+				data = Arrays.copyOfRange(b, pos, pos + compressedLength);
+				break;
+			case CompressionType.BZ2:
+			{
+				int decompressedLength = Ints.fromBytes(b[pos], b[pos + 1], b[pos + 2], b[pos + 3]);
+				if (decompressedLength < 0)
+				{
+					throw new IOException("Invalid decompressed length " + decompressedLength);
+				}
 
-				if (data == null)
+				// check the stream before trusting the length, which is garbage if the key is wrong
+				if (compressedLength < 6 || !isBzip2Start(b, pos + 4, decompressedLength))
 				{
-					return null;
+					throw new IOException("Bad bzip2 block header");
 				}
 
-				assert data.length == decompressedLength;
+				data = BZip2.decompress(b, pos + 4, compressedLength, decompressedLength);
+				break;
+			}
+			case CompressionType.GZ:
+			{
+				int decompressedLength = Ints.fromBytes(b[pos], b[pos + 1], b[pos + 2], b[pos + 3]);
+				if (decompressedLength < 0)
+				{
+					throw new IOException("Invalid decompressed length " + decompressedLength);
+				}
 
+				data = GZip.decompress(b, pos + 4, compressedLength, decompressedLength);
 				break;
 			}
 			default:
@@ -192,15 +297,18 @@ public class Container
 		return container;
 	}
 
-	private static byte[] decrypt(byte[] data, int length, int[] keys)
+	/**
+	 * Check if a headerless bzip2 stream starts with a block, or is an
+	 * empty stream
+	 */
+	private static boolean isBzip2Start(byte[] b, int off, int decompressedLength)
 	{
-		if (keys == null)
+		long magic = 0;
+		for (int i = off; i < off + 6; ++i)
 		{
-			return data;
+			magic = (magic << 8) | (b[i] & 0xFF);
 		}
-
-		Xtea xtea = new Xtea(keys);
-		return xtea.decrypt(data, length);
+		return magic == BZIP2_BLOCK_MAGIC || (magic == BZIP2_END_MAGIC && decompressedLength == 0);
 	}
 
 	private static byte[] encrypt(byte[] data, int length, int[] keys)
@@ -24,8 +24,13 @@
  */
 package net.runelite.cache.fs;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.FileData;
@@ -47,15 +52,106 @@ public class Index
 	private int compression; // compression method of this index's data in 255
 
 	private final List<Archive> archives = new ArrayList<>();
+	private final Map<Integer, Archive> archivesById = new HashMap<>();
+	private volatile Map<Integer, Archive> archivesByName; // built on demand, null when stale
+
+	private Storage loader; // storage to decode the reference table from on first access
+	private volatile boolean loaded = true;
+	private boolean loading;
+	private volatile boolean dirty = true; // reference table differs from what is in storage
 
 	public Index(int id)
 	{
 		this.id = id;
 	}
 
+	/**
+	 * Defer decoding this index's reference table until it is first
+	 * accessed, or until {@link #load()} is called.
+	 *
+	 * @param storage storage to load the index from
+	 */
+	public synchronized void setLoader(Storage storage)
+	{
+		this.loader = storage;
+		this.loaded = false;
+		this.dirty = false;
+	}
+
+	public boolean isLoaded()
+	{
+		return loaded;
+	}
+
+	/**
+	 * Decode this index's reference table if it has not been already.
+	 * This is safe to call from multiple threads.
+	 *
+	 * @throws IOException
+	 */
+	public void load() throws IOException
+	{
+		if (loaded)
+		{
+			return;
+		}
+
+		synchronized (this)
+		{
+			// loading is set if this is reentered from the loader itself
+			if (loaded || loading)
+			{
+				return;
+			}
+
+			loading = true;
+			try
+			{
+				loader.loadIndex(this);
+				loader = null;
+				loaded = true;
+				dirty = false;
+			}
+			finally
+			{
+				loading = false;
+			}
+		}
+	}
+
+	/**
+	 * Whether this index or any of its archives have been modified since
+	 * it was last loaded from or saved to storage. Changes made directly to
+	 * an archive's {@link FileData} are not tracked; call
+	 * {@link #setDirty(boolean)} after making them.
+	 */
+	public boolean isDirty()
+	{
+		return dirty;
+	}
+
+	public void setDirty(boolean dirty)
+	{
+		this.dirty = dirty;
+	}
+
+	private void ensureLoaded()
+	{
+		try
+		{
+			load();
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException("unable to load index " + id, ex);
+		}
+	}
+
 	@Override
 	public int hashCode()
 	{
+		ensureLoaded();
+
 		int hash = 3;
 		hash = 97 * hash + this.id;
 		hash = 97 * hash + this.revision;
@@ -75,6 +171,8 @@ public class Index
 			return false;
 		}
 		final Index other = (Index) obj;
+		ensureLoaded();
+		other.ensureLoaded();
 		if (this.id != other.id)
 		{
 			return false;
@@ -97,93 +195,136 @@ public class Index
 
 	public int getProtocol()
 	{
+		ensureLoaded();
 		return protocol;
 	}
 
 	public void setProtocol(int protocol)
 	{
+		ensureLoaded();
 		this.protocol = protocol;
+		this.dirty = true;
 	}
 
 	public boolean isNamed()
 	{
+		ensureLoaded();
 		return named;
 	}
 
 	public void setNamed(boolean named)
 	{
+		ensureLoaded();
 		this.named = named;
+		this.dirty = true;
 	}
 
 	public int getRevision()
 	{
+		ensureLoaded();
 		return revision;
 	}
 
 	public void setRevision(int revision)
 	{
+		ensureLoaded();
 		this.revision = revision;
+		this.dirty = true;
 	}
 
 	public int getCrc()
 	{
+		ensureLoaded();
 		return crc;
 	}
 
 	public void setCrc(int crc)
 	{
+		ensureLoaded();
 		this.crc = crc;
 	}
 
 	public int getCompression()
 	{
+		ensureLoaded();
 		return compression;
 	}
 
 	public void setCompression(int compression)
 	{
+		ensureLoaded();
 		this.compression = compression;
+		this.dirty = true;
 	}
 
 	public List<Archive> getArchives()
 	{
-		return archives;
+		ensureLoaded();
+		return Collections.unmodifiableList(archives);
 	}
 
 	public Archive addArchive(int id)
 	{
+		ensureLoaded();
 		Archive archive = new Archive(this, id);
 		this.archives.add(archive);
+		this.archivesById.put(id, archive);
+		this.archivesByName = null;
+		this.dirty = true;
 		return archive;
 	}
 
+	public void removeArchive(Archive archive)
+	{
+		ensureLoaded();
+		assert archive.getIndex() == this;
+		archives.remove(archive);
+		archivesById.remove(archive.getArchiveId(), archive);
+		archivesByName = null;
+		dirty = true;
+	}
+
+	/**
+	 * Called by archives of this index when their name hash changes
+	 */
+	void archiveRenamed()
+	{
+		archivesByName = null;
+		dirty = true;
+	}
+
 	public Archive getArchive(int id)
 	{
-		for (Archive a : archives)
-		{
-			if (a.getArchiveId() == id)
-			{
-				return a;
-			}
-		}
-		return null;
+		ensureLoaded();
+		return archivesById.get(id);
 	}
 
 	public Archive findArchiveByName(String name)
 	{
-		int hash = Djb2.hash(name);
-		for (Archive a : archives)
+		return findArchiveByNameHash(Djb2.hash(name));
+	}
+
+	public Archive findArchiveByNameHash(int nameHash)
+	{
+		ensureLoaded();
+
+		Map<Integer, Archive> byName = archivesByName;
+		if (byName == null)
 		{
-			if (a.getNameHash() == hash)
+			byName = new HashMap<>(archives.size() * 2);
+			for (Archive a : archives)
 			{
-				return a;
+				// if names collide, the first archive wins
+				byName.putIfAbsent(a.getNameHash(), a);
 			}
+			archivesByName = byName;
 		}
-		return null;
+		return byName.get(nameHash);
 	}
 
 	public IndexData toIndexData()
 	{
+		ensureLoaded();
 		IndexData data = new IndexData();
 		data.setProtocol(protocol);
 		data.setRevision(revision);
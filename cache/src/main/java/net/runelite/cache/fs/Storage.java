@@ -35,6 +35,17 @@ public interface Storage extends AutoCloseable
 
 	void load(Store store) throws IOException;
 
+	/**
+	 * Load an index which was deferred with {@link Index#setLoader(Storage)}.
+	 * Storages which load their indexes eagerly don't need to implement this.
+	 *
+	 * @param index
+	 * @throws IOException
+	 */
+	default void loadIndex(Index index) throws IOException
+	{
+	}
+
 	void save(Store store) throws IOException;
 
 	byte[] loadArchive(Archive archive) throws IOException;
@@ -31,6 +31,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.jagex.DiskStorage;
 import org.slf4j.Logger;
@@ -121,6 +124,48 @@ public final class Store implements Closeable
 		storage.load(this);
 	}
 
+	/**
+	 * Load the store and decode the reference tables of all indexes
+	 * concurrently, instead of on first access.
+	 *
+	 * @param executor executor to decode the indexes on
+	 * @throws IOException
+	 */
+	public void loadParallel(Executor executor) throws IOException
+	{
+		storage.load(this);
+
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[indexes.size()];
+		for (int i = 0; i < futures.length; ++i)
+		{
+			Index index = indexes.get(i);
+			futures[i] = CompletableFuture.runAsync(() ->
+			{
+				try
+				{
+					index.load();
+				}
+				catch (IOException ex)
+				{
+					throw new CompletionException(ex);
+				}
+			}, executor);
+		}
+
+		try
+		{
+			CompletableFuture.allOf(futures).join();
+		}
+		catch (CompletionException ex)
+		{
+			if (ex.getCause() instanceof IOException)
+			{
+				throw (IOException) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
 	public void save() throws IOException
 	{
 		storage.save(this);
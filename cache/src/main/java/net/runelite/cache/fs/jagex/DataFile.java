@@ -30,6 +30,10 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+import java.util.Collection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,21 +44,42 @@ public class DataFile implements Closeable
 	private static final int SECTOR_SIZE = 520;
 
 	private final RandomAccessFile dat;
+	private final boolean mapped;
+	private volatile MappedByteBuffer map; // read only view of dat, remapped as the file grows
+	private BitSet freeSectors; // sectors not used by any archive, null if not known
 
 	public DataFile(File file) throws FileNotFoundException
+	{
+		this(file, false);
+	}
+
+	/**
+	 * @param file data file
+	 * @param mapped if true, reads go through a read only memory mapping
+	 * of the file instead of seeking the shared file pointer, which allows
+	 * any number of threads to read concurrently
+	 * @throws FileNotFoundException
+	 */
+	public DataFile(File file, boolean mapped) throws FileNotFoundException
 	{
 		this.dat = new RandomAccessFile(file, "rw");
+		this.mapped = mapped;
 	}
 
 	@Override
 	public void close() throws IOException
 	{
+		map = null;
 		dat.close();
 	}
 
-	public void clear() throws IOException
+	public synchronized void clear() throws IOException
 	{
 		dat.setLength(0L);
+		if (freeSectors != null)
+		{
+			freeSectors.clear();
+		}
 	}
 
 	/**
@@ -67,6 +92,16 @@ public class DataFile implements Closeable
 	 * @throws IOException
 	 */
 	public byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
+	{
+		if (mapped)
+		{
+			return readMapped(indexId, archiveId, sector, size);
+		}
+
+		return readFile(indexId, archiveId, sector, size);
+	}
+
+	private synchronized byte[] readFile(int indexId, int archiveId, int sector, int size) throws IOException
 	{
 		if (sector <= 0L || dat.length() / SECTOR_SIZE < (long) sector)
 		{
@@ -169,99 +204,399 @@ public class DataFile implements Closeable
 		return buffer.array();
 	}
 
-	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData) throws IOException
+	private byte[] readMapped(int indexId, int archiveId, int sector, int size) throws IOException
 	{
-		int sector;
-		int startSector;
+		ByteBuffer map = getMap((long) SECTOR_SIZE * sector + 1);
+		if (sector <= 0 || map.capacity() / SECTOR_SIZE < sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", map.capacity(), sector);
+			return null;
+		}
 
-		byte[] writeBuffer = new byte[SECTOR_SIZE];
-		ByteBuffer data = ByteBuffer.wrap(compressedData);
+		// the duplicate has its own position, so concurrent readers don't interfere
+		ByteBuffer buffer = map.duplicate();
+		byte[] data = new byte[size];
 
-		sector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
-		if (sector == 0)
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
 		{
-			sector = 1;
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			int headerSize = archiveId > 0xFFFF ? 10 : 8;
+			int dataBlockSize = Math.min(size - readBytesCount, SECTOR_SIZE - headerSize);
+			int pos = SECTOR_SIZE * sector;
+			long end = (long) pos + headerSize + dataBlockSize;
+
+			if (end > buffer.capacity())
+			{
+				// the file may have been written to since it was mapped
+				buffer = getMap(end).duplicate();
+				if (end > buffer.capacity())
+				{
+					logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+					return null;
+				}
+			}
+
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (headerSize == 10)
+			{
+				currentArchive = buffer.getInt(pos);
+				currentPart = buffer.getShort(pos + 4) & 0xFFFF;
+				nextSector = ((buffer.get(pos + 6) & 0xFF) << 16)
+					| (buffer.getShort(pos + 7) & 0xFFFF);
+				currentIndex = buffer.get(pos + 9) & 0xFF;
+			}
+			else
+			{
+				currentArchive = buffer.getShort(pos) & 0xFFFF;
+				currentPart = buffer.getShort(pos + 2) & 0xFFFF;
+				nextSector = ((buffer.get(pos + 4) & 0xFF) << 16)
+					| (buffer.getShort(pos + 5) & 0xFFFF);
+				currentIndex = buffer.get(pos + 7) & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (nextSector < 0 || getMap((long) SECTOR_SIZE * nextSector + 1).capacity() / SECTOR_SIZE < nextSector)
+			{
+				logger.warn("Invalid next sector");
+				return null;
+			}
+
+			buffer.position(pos + headerSize);
+			buffer.get(data, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
 		}
-		startSector = sector;
 
-		for (int part = 0; data.hasRemaining(); ++part)
+		return data;
+	}
+
+	/**
+	 * Get the mapping of the data file, remapping it if it is smaller
+	 * than the requested length and the file has since grown.
+	 *
+	 * @param length required length of the mapping
+	 * @return
+	 * @throws IOException
+	 */
+	private ByteBuffer getMap(long length) throws IOException
+	{
+		MappedByteBuffer m = map;
+		if (m != null && m.capacity() >= length)
 		{
-			int nextSector = 0;
-			int dataToWrite;
+			return m;
+		}
 
-			if (nextSector == 0)
+		synchronized (this)
+		{
+			m = map;
+			if (m == null || m.capacity() < length)
 			{
-				nextSector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
-				if (nextSector == 0)
+				long fileLength = dat.length();
+				if (fileLength > Integer.MAX_VALUE)
 				{
-					++nextSector;
+					throw new IOException("data file is too large to map");
 				}
 
-				if (nextSector == sector)
+				if (m == null || m.capacity() < fileLength)
 				{
-					++nextSector;
+					logger.debug("Mapping data file, length {}", fileLength);
+					map = m = dat.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
 				}
 			}
+			return m;
+		}
+	}
 
-			if (0xFFFF < archiveId)
+	public synchronized DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData) throws IOException
+	{
+		return write(indexId, archiveId, compressedData, null);
+	}
+
+	/**
+	 * Write an archive. If the archive already exists, the sectors of its
+	 * existing chain are overwritten, with any extra sectors taken from
+	 * the free sector map or appended to the file, and any left over
+	 * sectors freed.
+	 *
+	 * @param indexId index of the archive
+	 * @param archiveId archive id
+	 * @param compressedData data to write
+	 * @param existing current index entry for the archive, or null
+	 * @return
+	 * @throws IOException
+	 */
+	public synchronized DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData, IndexEntry existing) throws IOException
+	{
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+		int blockSize = SECTOR_SIZE - headerSize;
+		int numSectors = Math.max(1, (compressedData.length + blockSize - 1) / blockSize);
+
+		int[] sectors = new int[numSectors];
+		int count = 0;
+
+		if (existing != null)
+		{
+			int[] chain = readChain(indexId, archiveId, existing.getSector(), existing.getLength());
+			if (chain != null)
 			{
-				if (data.remaining() <= 510)
+				for (int sector : chain)
 				{
-					nextSector = 0;
+					if (count < numSectors)
+					{
+						sectors[count++] = sector;
+					}
+					else if (freeSectors != null)
+					{
+						freeSectors.set(sector);
+					}
 				}
+			}
+		}
 
-				writeBuffer[0] = (byte) (archiveId >> 24);
-				writeBuffer[1] = (byte) (archiveId >> 16);
-				writeBuffer[2] = (byte) (archiveId >> 8);
-				writeBuffer[3] = (byte) archiveId;
-				writeBuffer[4] = (byte) (part >> 8);
-				writeBuffer[5] = (byte) part;
-				writeBuffer[6] = (byte) (nextSector >> 16);
-				writeBuffer[7] = (byte) (nextSector >> 8);
-				writeBuffer[8] = (byte) nextSector;
-				writeBuffer[9] = (byte) indexId;
-				dat.seek(SECTOR_SIZE * sector);
-				dat.write(writeBuffer, 0, 10);
-
-				dataToWrite = data.remaining();
-				if (dataToWrite > 510)
-				{
-					dataToWrite = 510;
-				}
+		int endSector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
+		if (endSector == 0)
+		{
+			endSector = 1;
+		}
+
+		while (count < numSectors)
+		{
+			int sector = freeSectors != null ? freeSectors.nextSetBit(1) : -1;
+			if (sector != -1)
+			{
+				freeSectors.clear(sector);
 			}
 			else
 			{
-				if (data.remaining() <= 512)
-				{
-					nextSector = 0;
-				}
+				sector = endSector++;
+			}
+			sectors[count++] = sector;
+		}
 
-				writeBuffer[0] = (byte) (archiveId >> 8);
-				writeBuffer[1] = (byte) archiveId;
-				writeBuffer[2] = (byte) (part >> 8);
-				writeBuffer[3] = (byte) part;
-				writeBuffer[4] = (byte) (nextSector >> 16);
-				writeBuffer[5] = (byte) (nextSector >> 8);
-				writeBuffer[6] = (byte) nextSector;
-				writeBuffer[7] = (byte) indexId;
-				dat.seek(SECTOR_SIZE * sector);
-				dat.write(writeBuffer, 0, 8);
-
-				dataToWrite = data.remaining();
-				if (dataToWrite > 512)
-				{
-					dataToWrite = 512;
-				}
+		// lay out the chain as if it were contiguous, then write each
+		// run of consecutive sectors with a single write
+		byte[] writeBuffer = new byte[(numSectors - 1) * SECTOR_SIZE + headerSize
+			+ (compressedData.length - (numSectors - 1) * blockSize)];
+		for (int part = 0; part < numSectors; ++part)
+		{
+			int nextSector = part + 1 < numSectors ? sectors[part + 1] : 0;
+			int off = part * SECTOR_SIZE;
+
+			if (headerSize == 10)
+			{
+				writeBuffer[off] = (byte) (archiveId >> 24);
+				writeBuffer[off + 1] = (byte) (archiveId >> 16);
+				writeBuffer[off + 2] = (byte) (archiveId >> 8);
+				writeBuffer[off + 3] = (byte) archiveId;
+				writeBuffer[off + 4] = (byte) (part >> 8);
+				writeBuffer[off + 5] = (byte) part;
+				writeBuffer[off + 6] = (byte) (nextSector >> 16);
+				writeBuffer[off + 7] = (byte) (nextSector >> 8);
+				writeBuffer[off + 8] = (byte) nextSector;
+				writeBuffer[off + 9] = (byte) indexId;
+			}
+			else
+			{
+				writeBuffer[off] = (byte) (archiveId >> 8);
+				writeBuffer[off + 1] = (byte) archiveId;
+				writeBuffer[off + 2] = (byte) (part >> 8);
+				writeBuffer[off + 3] = (byte) part;
+				writeBuffer[off + 4] = (byte) (nextSector >> 16);
+				writeBuffer[off + 5] = (byte) (nextSector >> 8);
+				writeBuffer[off + 6] = (byte) nextSector;
+				writeBuffer[off + 7] = (byte) indexId;
+			}
+
+			int dataOff = part * blockSize;
+			System.arraycopy(compressedData, dataOff, writeBuffer, off + headerSize,
+				Math.min(blockSize, compressedData.length - dataOff));
+		}
+
+		FileChannel channel = dat.getChannel();
+		for (int part = 0; part < numSectors;)
+		{
+			int run = 1;
+			while (part + run < numSectors && sectors[part + run] == sectors[part] + run)
+			{
+				++run;
+			}
+
+			int off = part * SECTOR_SIZE;
+			int len = Math.min(run * SECTOR_SIZE, writeBuffer.length - off);
+			ByteBuffer buffer = ByteBuffer.wrap(writeBuffer, off, len);
+			long position = (long) SECTOR_SIZE * sectors[part];
+			while (buffer.hasRemaining())
+			{
+				position += channel.write(buffer, position);
 			}
 
-			data.get(writeBuffer, 0, dataToWrite);
-			dat.write(writeBuffer, 0, dataToWrite);
-			sector = nextSector;
+			part += run;
 		}
 
 		DataFileWriteResult res = new DataFileWriteResult();
-		res.sector = startSector;
+		res.sector = sectors[0];
 		res.compressedLength = compressedData.length;
 		return res;
 	}
+
+	/**
+	 * Build the map of free sectors from the sector chains of every
+	 * archive in this file. Once built, sectors released by later writes
+	 * are reused before the file is grown.
+	 *
+	 * @param entries index entries of every archive stored in this file
+	 * @throws IOException
+	 */
+	public synchronized void buildFreeSectorMap(Collection<IndexEntry> entries) throws IOException
+	{
+		int numSectors = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
+
+		BitSet free = new BitSet(numSectors);
+		if (numSectors > 1)
+		{
+			free.set(1, numSectors); // sector 0 is never used
+		}
+
+		for (IndexEntry entry : entries)
+		{
+			int[] chain = readChain(entry.getIndexFile().getIndexFileId(), entry.getId(), entry.getSector(), entry.getLength());
+			if (chain == null)
+			{
+				logger.warn("Unable to read sector chain of archive {}/{}", entry.getIndexFile().getIndexFileId(), entry.getId());
+				continue;
+			}
+
+			for (int sector : chain)
+			{
+				free.clear(sector);
+			}
+		}
+
+		logger.debug("{} of {} sectors are free", free.cardinality(), numSectors);
+		freeSectors = free;
+	}
+
+	public synchronized boolean hasFreeSectorMap()
+	{
+		return freeSectors != null;
+	}
+
+	/**
+	 * Release the sectors of an archive which is no longer referenced by
+	 * its index, so they can be reused by later writes
+	 *
+	 * @param entry index entry the archive was stored under
+	 * @throws IOException
+	 */
+	public synchronized void free(IndexEntry entry) throws IOException
+	{
+		if (freeSectors == null)
+		{
+			// the map is built from the index files when it is needed
+			return;
+		}
+
+		int[] chain = readChain(entry.getIndexFile().getIndexFileId(), entry.getId(), entry.getSector(), entry.getLength());
+		if (chain == null)
+		{
+			logger.warn("Unable to read sector chain of archive {}/{}", entry.getIndexFile().getIndexFileId(), entry.getId());
+			return;
+		}
+
+		for (int sector : chain)
+		{
+			freeSectors.set(sector);
+		}
+	}
+
+	/**
+	 * Flush written data to the storage device
+	 *
+	 * @throws IOException
+	 */
+	public void sync() throws IOException
+	{
+		dat.getChannel().force(false);
+	}
+
+	/**
+	 * Read the sectors of an archive's chain without reading its data
+	 *
+	 * @return the sectors, or null if the chain is invalid
+	 * @throws IOException
+	 */
+	private int[] readChain(int indexId, int archiveId, int sector, int size) throws IOException
+	{
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+		int blockSize = SECTOR_SIZE - headerSize;
+		int numSectors = Math.max(1, (size + blockSize - 1) / blockSize);
+		long numFileSectors = (dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE;
+
+		int[] chain = new int[numSectors];
+		byte[] header = new byte[headerSize];
+
+		for (int part = 0; part < numSectors; ++part)
+		{
+			if (sector <= 0 || sector >= numFileSectors)
+			{
+				return null;
+			}
+
+			chain[part] = sector;
+
+			dat.seek((long) SECTOR_SIZE * sector);
+			if (dat.read(header) != headerSize)
+			{
+				return null;
+			}
+
+			int currentArchive, currentPart, currentIndex;
+			if (headerSize == 10)
+			{
+				currentArchive = ((header[0] & 0xFF) << 24)
+					| ((header[1] & 0xFF) << 16)
+					| ((header[2] & 0xFF) << 8)
+					| (header[3] & 0xFF);
+				currentPart = ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+				sector = ((header[6] & 0xFF) << 16)
+					| ((header[7] & 0xFF) << 8)
+					| (header[8] & 0xFF);
+				currentIndex = header[9] & 0xFF;
+			}
+			else
+			{
+				currentArchive = ((header[0] & 0xFF) << 8) | (header[1] & 0xFF);
+				currentPart = ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+				sector = ((header[4] & 0xFF) << 16)
+					| ((header[5] & 0xFF) << 8)
+					| (header[6] & 0xFF);
+				currentIndex = header[7] & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				return null;
+			}
+		}
+
+		return chain;
+	}
 }
@@ -25,11 +25,20 @@
 package net.runelite.cache.fs.jagex;
 
 import com.google.common.primitives.Ints;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.Index;
@@ -47,19 +56,43 @@ public class DiskStorage implements Storage
 
 	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
 	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+	private static final String MAIN_FILE_CACHE_JOURNAL = "main_file_cache.journal";
+
+	private static final int JOURNAL_ENTRY_LEN = 13;
 
 	private final File folder;
+	private final boolean mapped;
 
 	private final DataFile data;
 	private final IndexFile index255;
 	private final List<IndexFile> indexFiles = new ArrayList<>();
+	private final File journal;
+
+	// index entries of archives written since the last save, keyed by index file and archive id
+	private final Map<Long, IndexEntry> pendingEntries = new ConcurrentHashMap<>();
 
 	public DiskStorage(File folder) throws IOException
+	{
+		this(folder, false);
+	}
+
+	/**
+	 * @param folder cache folder
+	 * @param mapped if true, archives are read through read only memory
+	 * mappings of the data and index files, so loadArchive and readIndex
+	 * may be called from any number of threads concurrently
+	 * @throws IOException
+	 */
+	public DiskStorage(File folder, boolean mapped) throws IOException
 	{
 		this.folder = folder;
+		this.mapped = mapped;
 
-		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT));
-		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT), mapped);
+		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"), mapped);
+		this.journal = new File(folder, MAIN_FILE_CACHE_JOURNAL);
+
+		recover();
 	}
 
 	@Override
@@ -74,14 +107,27 @@ public class DiskStorage implements Storage
 		assert store.getIndexes().size() == indexFiles.size();
 	}
 
+	/**
+	 * Commit any archives written since the last save, and close the
+	 * cache files. Reference tables are only written by a save.
+	 *
+	 * @throws IOException
+	 */
 	@Override
-	public void close() throws IOException
+	public synchronized void close() throws IOException
 	{
-		data.close();
-		index255.close();
-		for (IndexFile indexFile : indexFiles)
+		try
 		{
-			indexFile.close();
+			commit();
+		}
+		finally
+		{
+			data.close();
+			index255.close();
+			for (IndexFile indexFile : indexFiles)
+			{
+				indexFile.close();
+			}
 		}
 	}
 
@@ -95,7 +141,7 @@ public class DiskStorage implements Storage
 			}
 		}
 
-		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i));
+		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i), mapped);
 		indexFiles.add(indexFile);
 		return indexFile;
 	}
@@ -103,20 +149,22 @@ public class DiskStorage implements Storage
 	@Override
 	public void load(Store store) throws IOException
 	{
+		// reference tables are decoded on first access of each index
 		for (Index index : store.getIndexes())
 		{
-			loadIndex(index);
+			index.setLoader(this);
 		}
 	}
 
 	public byte[] readIndex(int indexId) throws IOException
 	{
-		IndexEntry entry = index255.read(indexId);
+		IndexEntry entry = readEntry(index255, indexId);
 		byte[] indexData = data.read(index255.getIndexFileId(), entry.getId(), entry.getSector(), entry.getLength());
 		return indexData;
 	}
 
-	private void loadIndex(Index index) throws IOException
+	@Override
+	public void loadIndex(Index index) throws IOException
 	{
 		logger.trace("Loading index {}", index.getId());
 
@@ -155,7 +203,7 @@ public class DiskStorage implements Storage
 
 		assert indexFile.getIndexFileId() == index.getId();
 
-		IndexEntry entry = indexFile.read(archive.getArchiveId());
+		IndexEntry entry = readEntry(indexFile, archive.getArchiveId());
 		if (entry == null)
 		{
 			logger.debug("can't read archive " + archive.getArchiveId() + " from index " + index.getId());
@@ -171,14 +219,185 @@ public class DiskStorage implements Storage
 		return archiveData;
 	}
 
+	private IndexEntry readEntry(IndexFile indexFile, int id) throws IOException
+	{
+		IndexEntry entry = pendingEntries.get(key(indexFile.getIndexFileId(), id));
+		return entry != null ? entry : indexFile.read(id);
+	}
+
+	private static long key(int indexFileId, int id)
+	{
+		return (long) indexFileId << 32 | (id & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Save the reference table of each modified index, and commit them
+	 * along with every archive written since the last save. Archives are
+	 * never written over the sectors of their committed data, so the cache
+	 * on disk is left either entirely before or entirely after the save
+	 * if it is interrupted.
+	 *
+	 * @param store
+	 * @throws IOException
+	 */
 	@Override
-	public void save(Store store) throws IOException
+	public synchronized void save(Store store) throws IOException
 	{
 		logger.debug("Saving store");
 
+		List<Index> saved = new ArrayList<>();
 		for (Index i : store.getIndexes())
 		{
-			saveIndex(i);
+			if (i.isDirty())
+			{
+				saveIndex(i);
+				saved.add(i);
+			}
+		}
+
+		commit();
+
+		for (Index i : saved)
+		{
+			i.setDirty(false);
+		}
+	}
+
+	private void commit() throws IOException
+	{
+		if (pendingEntries.isEmpty())
+		{
+			return;
+		}
+
+		List<IndexEntry> entries = new ArrayList<>(pendingEntries.values());
+
+		// new data must be on disk before anything refers to it
+		data.sync();
+
+		List<IndexEntry> replaced = new ArrayList<>();
+		for (IndexEntry entry : entries)
+		{
+			IndexEntry old = entry.getIndexFile().read(entry.getId());
+			if (old != null)
+			{
+				replaced.add(old);
+			}
+		}
+
+		// the save is committed once the journal is written. If the index
+		// files aren't fully updated, they are completed from the journal
+		// when the cache is next opened.
+		writeJournal(entries);
+		applyEntries(entries);
+		Files.delete(journal.toPath());
+
+		pendingEntries.clear();
+
+		for (IndexEntry old : replaced)
+		{
+			data.free(old);
+		}
+
+		logger.debug("Committed {} index entries, released {} archives", entries.size(), replaced.size());
+	}
+
+	private void writeJournal(Collection<IndexEntry> entries) throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream(4 + entries.size() * JOURNAL_ENTRY_LEN + 4);
+		DataOutputStream out = new DataOutputStream(bout);
+
+		out.writeInt(entries.size());
+		for (IndexEntry entry : entries)
+		{
+			out.writeByte(entry.getIndexFile().getIndexFileId());
+			out.writeInt(entry.getId());
+			out.writeInt(entry.getSector());
+			out.writeInt(entry.getLength());
+		}
+
+		Crc32 crc = new Crc32();
+		crc.update(bout.toByteArray(), 0, bout.size());
+		out.writeInt(crc.getHash());
+
+		try (FileOutputStream fout = new FileOutputStream(journal))
+		{
+			bout.writeTo(fout);
+			fout.getFD().sync();
+		}
+	}
+
+	/**
+	 * Finish a save which was interrupted after it was committed, or
+	 * discard the journal of one which was not
+	 *
+	 * @throws IOException
+	 */
+	private void recover() throws IOException
+	{
+		if (!journal.exists())
+		{
+			return;
+		}
+
+		List<IndexEntry> entries = readJournal(Files.readAllBytes(journal.toPath()));
+		if (entries != null)
+		{
+			logger.info("Replaying {} index entries from journal", entries.size());
+			applyEntries(entries);
+		}
+		else
+		{
+			logger.warn("Discarding incomplete journal");
+		}
+
+		Files.delete(journal.toPath());
+	}
+
+	private List<IndexEntry> readJournal(byte[] b) throws IOException
+	{
+		if (b.length < 8)
+		{
+			return null;
+		}
+
+		Crc32 crc = new Crc32();
+		crc.update(b, 0, b.length - 4);
+		if (crc.getHash() != Ints.fromBytes(b[b.length - 4], b[b.length - 3], b[b.length - 2], b[b.length - 1]))
+		{
+			return null;
+		}
+
+		ByteBuffer buf = ByteBuffer.wrap(b, 0, b.length - 4);
+		int count = buf.getInt();
+		if ((long) count * JOURNAL_ENTRY_LEN != buf.remaining())
+		{
+			return null;
+		}
+
+		List<IndexEntry> entries = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i)
+		{
+			int indexFileId = buf.get() & 0xFF;
+			IndexFile indexFile = indexFileId == index255.getIndexFileId() ? index255 : getIndex(indexFileId);
+			entries.add(new IndexEntry(indexFile, buf.getInt(), buf.getInt(), buf.getInt()));
+		}
+		return entries;
+	}
+
+	private void applyEntries(Collection<IndexEntry> entries) throws IOException
+	{
+		Map<IndexFile, List<IndexEntry>> byIndexFile = new LinkedHashMap<>();
+		for (IndexEntry entry : entries)
+		{
+			byIndexFile.computeIfAbsent(entry.getIndexFile(), k -> new ArrayList<>()).add(entry);
+		}
+
+		for (Map.Entry<IndexFile, List<IndexEntry>> entry : byIndexFile.entrySet())
+		{
+			IndexFile indexFile = entry.getKey();
+			indexFile.write(entry.getValue());
+			indexFile.sync();
 		}
 	}
 
@@ -190,9 +409,8 @@ public class DiskStorage implements Storage
 		Container container = new Container(index.getCompression(), -1); // index data revision is always -1
 		container.compress(data, null);
 		byte[] compressedData = container.data;
-		DataFileWriteResult res = this.data.write(index255.getIndexFileId(), index.getId(), compressedData);
 
-		index255.write(new IndexEntry(index255, index.getId(), res.sector, res.compressedLength));
+		write(index255, index.getId(), compressedData);
 
 		Crc32 crc = new Crc32();
 		crc.update(compressedData, 0, compressedData.length);
@@ -206,8 +424,7 @@ public class DiskStorage implements Storage
 		IndexFile indexFile = getIndex(index.getId());
 		assert indexFile.getIndexFileId() == index.getId();
 
-		DataFileWriteResult res = data.write(index.getId(), a.getArchiveId(), archiveData);
-		indexFile.write(new IndexEntry(indexFile, a.getArchiveId(), res.sector, res.compressedLength));
+		DataFileWriteResult res = write(indexFile, a.getArchiveId(), archiveData);
 
 		byte compression = archiveData[0];
 		int compressedSize = Ints.fromBytes(archiveData[1], archiveData[2],
@@ -226,4 +443,116 @@ public class DiskStorage implements Storage
 		logger.trace("Saved archive {}/{} at sector {}, compressed length {}",
 			index.getId(), a.getArchiveId(), res.sector, res.compressedLength);
 	}
+
+	/**
+	 * Write archive data to be committed by the next save, or on close
+	 */
+	private synchronized DataFileWriteResult write(IndexFile indexFile, int id, byte[] archiveData) throws IOException
+	{
+		ensureFreeSectorMap();
+
+		// an archive written since the last save isn't referenced by its
+		// index file yet, so its sectors can be overwritten. Otherwise the
+		// data goes to free sectors, leaving the committed copy intact.
+		long key = key(indexFile.getIndexFileId(), id);
+		IndexEntry pending = pendingEntries.get(key);
+		DataFileWriteResult res = data.write(indexFile.getIndexFileId(), id, archiveData, pending);
+		pendingEntries.put(key, new IndexEntry(indexFile, id, res.sector, res.compressedLength));
+		return res;
+	}
+
+	/**
+	 * Build the data file's free sector map from every index file, so
+	 * that space released by overwritten archives is reused.
+	 *
+	 * @throws IOException
+	 */
+	private void ensureFreeSectorMap() throws IOException
+	{
+		if (data.hasFreeSectorMap())
+		{
+			return;
+		}
+
+		List<IndexEntry> entries = new ArrayList<>();
+		addEntries(index255, entries);
+		for (IndexFile indexFile : indexFiles)
+		{
+			addEntries(indexFile, entries);
+		}
+
+		data.buildFreeSectorMap(entries);
+	}
+
+	private static void addEntries(IndexFile indexFile, List<IndexEntry> entries) throws IOException
+	{
+		for (int i = 0, count = indexFile.getIndexCount(); i < count; ++i)
+		{
+			IndexEntry entry = indexFile.read(i);
+			if (entry != null)
+			{
+				entries.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * Write a defragmented copy of this cache, with the sectors of
+	 * each archive stored contiguously and no unused sectors. Archives
+	 * written since the last save are not included.
+	 *
+	 * @param out folder to write the cache to, which must not already hold a cache
+	 * @throws IOException
+	 */
+	public void compact(File out) throws IOException
+	{
+		if (out.getCanonicalFile().equals(folder.getCanonicalFile()))
+		{
+			throw new IOException("Unable to compact a cache into its own folder");
+		}
+
+		// the output files are truncated, so refuse to overwrite an existing cache
+		File outData = new File(out, MAIN_FILE_CACHE_DAT);
+		if (outData.length() > 0)
+		{
+			throw new IOException("Folder " + out + " already holds a cache");
+		}
+
+		try (DiskStorage storage = new DiskStorage(out))
+		{
+			storage.data.clear();
+			storage.index255.clear();
+
+			for (IndexFile indexFile : indexFiles)
+			{
+				IndexFile outIndexFile = storage.getIndex(indexFile.getIndexFileId());
+				outIndexFile.clear();
+				copyIndex(indexFile, storage.data, outIndexFile);
+			}
+
+			copyIndex(index255, storage.data, storage.index255);
+		}
+	}
+
+	private void copyIndex(IndexFile indexFile, DataFile outData, IndexFile outIndexFile) throws IOException
+	{
+		for (int i = 0, count = indexFile.getIndexCount(); i < count; ++i)
+		{
+			IndexEntry entry = indexFile.read(i);
+			if (entry == null)
+			{
+				continue;
+			}
+
+			byte[] archiveData = data.read(indexFile.getIndexFileId(), i, entry.getSector(), entry.getLength());
+			if (archiveData == null)
+			{
+				logger.warn("Unable to read archive {}/{}, not copying it", indexFile.getIndexFileId(), i);
+				continue;
+			}
+
+			DataFileWriteResult res = outData.write(outIndexFile.getIndexFileId(), i, archiveData);
+			outIndexFile.write(new IndexEntry(outIndexFile, i, res.sector, res.compressedLength));
+		}
+	}
 }
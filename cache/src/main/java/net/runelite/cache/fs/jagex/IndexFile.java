@@ -29,6 +29,12 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,17 +49,26 @@ public class IndexFile implements Closeable
 	private final File file;
 	private final RandomAccessFile idx;
 	private final byte[] buffer = new byte[INDEX_ENTRY_LEN];
+	private final boolean mapped;
+	private volatile MappedByteBuffer map; // read only view of idx, remapped as the file grows
 
 	public IndexFile(int indexFileId, File file) throws FileNotFoundException
+	{
+		this(indexFileId, file, false);
+	}
+
+	public IndexFile(int indexFileId, File file, boolean mapped) throws FileNotFoundException
 	{
 		this.indexFileId = indexFileId;
 		this.file = file;
 		this.idx = new RandomAccessFile(file, "rw");
+		this.mapped = mapped;
 	}
 
 	@Override
 	public void close() throws IOException
 	{
+		map = null;
 		idx.close();
 	}
 
@@ -109,18 +124,91 @@ public class IndexFile implements Closeable
 		idx.write(buffer);
 	}
 
-	public synchronized IndexEntry read(int id) throws IOException
+	/**
+	 * Write a number of entries, with each run of consecutive ids
+	 * written at once
+	 *
+	 * @param entries entries to write
+	 * @throws IOException
+	 */
+	public synchronized void write(Collection<IndexEntry> entries) throws IOException
 	{
-		idx.seek(id * INDEX_ENTRY_LEN);
-		int i = idx.read(buffer);
-		if (i != INDEX_ENTRY_LEN)
+		IndexEntry[] sorted = entries.toArray(new IndexEntry[entries.size()]);
+		Arrays.sort(sorted, Comparator.comparingInt(IndexEntry::getId));
+
+		FileChannel channel = idx.getChannel();
+		for (int i = 0; i < sorted.length;)
 		{
-			logger.debug("short read for id {} on index {}: {}", id, indexFileId, i);
-			return null;
+			int run = 1;
+			while (i + run < sorted.length && sorted[i + run].getId() == sorted[i].getId() + run)
+			{
+				++run;
+			}
+
+			ByteBuffer buf = ByteBuffer.allocate(run * INDEX_ENTRY_LEN);
+			for (int j = i; j < i + run; ++j)
+			{
+				IndexEntry entry = sorted[j];
+				buf.put((byte) (entry.getLength() >> 16));
+				buf.putShort((short) entry.getLength());
+				buf.put((byte) (entry.getSector() >> 16));
+				buf.putShort((short) entry.getSector());
+			}
+			buf.flip();
+
+			long position = (long) sorted[i].getId() * INDEX_ENTRY_LEN;
+			while (buf.hasRemaining())
+			{
+				position += channel.write(buf, position);
+			}
+
+			i += run;
 		}
+	}
 
-		int length = ((buffer[0] & 0xFF) << 16) | ((buffer[1] & 0xFF) << 8) | (buffer[2] & 0xFF);
-		int sector = ((buffer[3] & 0xFF) << 16) | ((buffer[4] & 0xFF) << 8) | (buffer[5] & 0xFF);
+	/**
+	 * Flush written entries to the storage device
+	 *
+	 * @throws IOException
+	 */
+	public void sync() throws IOException
+	{
+		idx.getChannel().force(false);
+	}
+
+	public IndexEntry read(int id) throws IOException
+	{
+		int length, sector;
+
+		if (mapped)
+		{
+			MappedByteBuffer m = getMap((long) (id + 1) * INDEX_ENTRY_LEN);
+			int pos = id * INDEX_ENTRY_LEN;
+			if (pos + INDEX_ENTRY_LEN > m.capacity())
+			{
+				logger.debug("short read for id {} on index {}", id, indexFileId);
+				return null;
+			}
+
+			length = ((m.get(pos) & 0xFF) << 16) | (m.getShort(pos + 1) & 0xFFFF);
+			sector = ((m.get(pos + 3) & 0xFF) << 16) | (m.getShort(pos + 4) & 0xFFFF);
+		}
+		else
+		{
+			synchronized (this)
+			{
+				idx.seek(id * INDEX_ENTRY_LEN);
+				int i = idx.read(buffer);
+				if (i != INDEX_ENTRY_LEN)
+				{
+					logger.debug("short read for id {} on index {}: {}", id, indexFileId, i);
+					return null;
+				}
+
+				length = ((buffer[0] & 0xFF) << 16) | ((buffer[1] & 0xFF) << 8) | (buffer[2] & 0xFF);
+				sector = ((buffer[3] & 0xFF) << 16) | ((buffer[4] & 0xFF) << 8) | (buffer[5] & 0xFF);
+			}
+		}
 
 		if (length <= 0 || sector <= 0)
 		{
@@ -135,4 +223,27 @@ public class IndexFile implements Closeable
 	{
 		return (int) (idx.length() / INDEX_ENTRY_LEN);
 	}
+
+	private MappedByteBuffer getMap(long length) throws IOException
+	{
+		MappedByteBuffer m = map;
+		if (m != null && m.capacity() >= length)
+		{
+			return m;
+		}
+
+		synchronized (this)
+		{
+			m = map;
+			if (m == null || m.capacity() < length)
+			{
+				long fileLength = idx.length();
+				if (m == null || m.capacity() < fileLength)
+				{
+					map = m = idx.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+				}
+			}
+			return m;
+		}
+	}
 }
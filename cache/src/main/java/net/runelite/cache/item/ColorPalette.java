@@ -24,13 +24,30 @@
  */
 package net.runelite.cache.item;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.Getter;
 
 public class ColorPalette
 {
+	// full palettes by brightness, shared between all users
+	private static final Map<Double, int[]> PALETTES = new ConcurrentHashMap<>();
+
 	@Getter
 	private final int[] colorPalette;
 
+	/**
+	 * Get the full (0-512) color palette for the given brightness. The
+	 * returned palette is shared and must not be modified.
+	 *
+	 * @param brightness
+	 * @return
+	 */
+	public static int[] forBrightness(double brightness)
+	{
+		return PALETTES.computeIfAbsent(brightness, b -> new ColorPalette(b, 0, 512).getColorPalette());
+	}
+
 	public ColorPalette(double brightness, int var2, int var3)
 	{
 		colorPalette = buildColorPalettee(brightness, var2, var3);
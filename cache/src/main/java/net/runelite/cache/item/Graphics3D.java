@@ -54,7 +54,7 @@ class Graphics3D extends Rasterizer2D
 		}
 	}
 
-	private final RSTextureProvider textureProvider;
+	private RSTextureProvider textureProvider;
 	boolean rasterClipEnable;
 	boolean field1909;
 	boolean lowMem;
@@ -77,6 +77,11 @@ class Graphics3D extends Rasterizer2D
 		this.textureProvider = textureProvider;
 	}
 
+	public void setTextureProvider(RSTextureProvider textureProvider)
+	{
+		this.textureProvider = textureProvider;
+	}
+
 	public final void setRasterClipping()
 	{
 		setRasterClipping(draw_region_x, drawingAreaTop, drawingAreaRight, drawingAreaBottom);
@@ -134,7 +139,7 @@ class Graphics3D extends Rasterizer2D
 
 	public final void setBrightness(double var0)
 	{
-		colorPalette = new ColorPalette(var0, 0, 512).getColorPalette();
+		colorPalette = ColorPalette.forBrightness(var0);
 	}
 
 	final void rasterGouraud(int var0, int var1, int var2, int var3, int var4, int var5, int var6, int var7, int var8)
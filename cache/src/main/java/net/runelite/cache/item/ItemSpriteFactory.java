@@ -24,6 +24,8 @@
  */
 package net.runelite.cache.item;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import net.runelite.cache.definitions.ItemDefinition;
@@ -37,6 +39,18 @@ import net.runelite.cache.models.VertexNormal;
 
 public class ItemSpriteFactory
 {
+	// resolved textures, shared by all renders using the same texture provider.
+	// The values may reference their keys through the sprite provider, so
+	// this is bounded by size rather than relying on the weak keys alone.
+	private static final int MAX_TEXTURE_PROVIDERS = 4;
+	private static final Cache<TextureProvider, RSTextureProvider> TEXTURE_PROVIDERS = CacheBuilder.newBuilder()
+		.weakKeys()
+		.maximumSize(MAX_TEXTURE_PROVIDERS)
+		.build();
+
+	// rasterizers are reused by each thread rendering sprites
+	private static final ThreadLocal<Graphics3D> GRAPHICS = ThreadLocal.withInitial(() -> new Graphics3D(null));
+
 	public static final BufferedImage createSprite(ItemProvider itemProvider, ModelProvider modelProvider,
 		SpriteProvider spriteProvider, TextureProvider textureProvider,
 		int itemId, int quantity, int border, int shadowColor,
@@ -112,10 +126,11 @@ public class ItemSpriteFactory
 			}
 		}
 
-		RSTextureProvider rsTextureProvider = new RSTextureProvider(textureProvider, spriteProvider);
+		RSTextureProvider rsTextureProvider = getTextureProvider(textureProvider, spriteProvider);
 
 		SpritePixels spritePixels = new SpritePixels(36, 32);
-		Graphics3D graphics = new Graphics3D(rsTextureProvider);
+		Graphics3D graphics = GRAPHICS.get();
+		graphics.setTextureProvider(rsTextureProvider);
 		graphics.setBrightness(0.6d);
 		graphics.setRasterBuffer(spritePixels.pixels, 36, 32);
 		graphics.reset();
@@ -180,9 +195,21 @@ public class ItemSpriteFactory
 
 		graphics.setRasterClipping();
 		graphics.rasterGouraudLowRes = true;
+		graphics.setTextureProvider(null);
 		return spritePixels;
 	}
 
+	private static RSTextureProvider getTextureProvider(TextureProvider textureProvider, SpriteProvider spriteProvider)
+	{
+		RSTextureProvider rsTextureProvider = TEXTURE_PROVIDERS.getIfPresent(textureProvider);
+		if (rsTextureProvider == null || rsTextureProvider.getSpriteProvider() != spriteProvider)
+		{
+			rsTextureProvider = new RSTextureProvider(textureProvider, spriteProvider);
+			TEXTURE_PROVIDERS.put(textureProvider, rsTextureProvider);
+		}
+		return rsTextureProvider;
+	}
+
 	private static Model getModel(ModelProvider modelProvider, ItemDefinition item) throws IOException
 	{
 		Model itemModel;
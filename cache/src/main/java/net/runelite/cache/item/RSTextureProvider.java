@@ -24,6 +24,7 @@
  */
 package net.runelite.cache.item;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import net.runelite.cache.definitions.TextureDefinition;
 import net.runelite.cache.definitions.providers.SpriteProvider;
 import net.runelite.cache.definitions.providers.TextureProvider;
@@ -32,6 +33,7 @@ public class RSTextureProvider
 {
 	private final SpriteProvider spriteProvider;
 	TextureDefinition[] textures;
+	private final AtomicReferenceArray<int[]> pixels; // resolved texture pixels, by id
 	int maxSize;
 	int size;
 	double brightness;
@@ -62,20 +64,45 @@ public class RSTextureProvider
 		{
 			textures[textureDefinition.getId()] = textureDefinition;
 		}
+
+		pixels = new AtomicReferenceArray<>(textures.length);
+	}
+
+	SpriteProvider getSpriteProvider()
+	{
+		return spriteProvider;
 	}
 
+	/**
+	 * Get the pixels of a texture, resolving it the first time it is used.
+	 * This is safe to call from multiple threads.
+	 *
+	 * @param var1 texture id
+	 * @return
+	 */
 	public int[] load(int var1)
 	{
+		int[] resolved = pixels.get(var1);
+		if (resolved != null)
+		{
+			return resolved;
+		}
+
 		TextureDefinition var2 = this.textures[var1];
 		if (var2 != null)
 		{
-			if (var2.pixels != null)
+			// resolving a texture adjusts its sprite's palette, so it must only happen once
+			synchronized (var2)
 			{
-				return var2.pixels;
+				if (var2.pixels == null)
+				{
+					var2.method2680(this.brightness, this.width, spriteProvider);
+				}
+				resolved = var2.pixels;
 			}
 
-			boolean var3 = var2.method2680(this.brightness, this.width, spriteProvider);
-			return var2.pixels;
+			pixels.set(var1, resolved);
+			return resolved;
 		}
 
 		return null;
@@ -24,10 +24,18 @@
  */
 package net.runelite.cache.region;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.LocationsDefinition;
 import net.runelite.cache.definitions.MapDefinition;
@@ -45,13 +53,25 @@ public class RegionLoader
 {
 	private static final Logger logger = LoggerFactory.getLogger(RegionLoader.class);
 
-	private static final int MAX_REGION = 32768;
+	static final int MAX_REGION = 32768;
+	private static final int REGION_CACHE_SIZE = 256; // regions kept when loading on demand
 
 	private final Store store;
 	private final Index index;
 	private final XteaKeyManager keyManager;
 
-	private final Map<Integer, Region> regions = new HashMap<>();
+	private final Map<Integer, Region> regions = new ConcurrentHashMap<>();
+	private volatile boolean loaded; // all regions are in regions
+	private final LoadingCache<Integer, Optional<Region>> regionCache = CacheBuilder.newBuilder()
+		.maximumSize(REGION_CACHE_SIZE)
+		.build(new CacheLoader<Integer, Optional<Region>>()
+		{
+			@Override
+			public Optional<Region> load(Integer id) throws IOException
+			{
+				return Optional.ofNullable(loadRegionFromArchive(id));
+			}
+		});
 	private Region lowestX = null, lowestY = null;
 	private Region highestX = null, highestY = null;
 
@@ -63,16 +83,85 @@ public class RegionLoader
 		keyManager.loadKeys();
 	}
 
-	public void loadRegions() throws IOException
+	/**
+	 * Load all regions, in parallel.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void loadRegions() throws IOException
 	{
-		for (int i = 0; i < MAX_REGION; ++i)
+		if (loaded)
+		{
+			return;
+		}
+
+		try
 		{
-			Region region = this.loadRegionFromArchive(i);
-			if (region != null)
+			IntStream.range(0, MAX_REGION).parallel().forEach(i ->
 			{
-				regions.put(i, region);
-			}
+				try
+				{
+					Region region = this.loadRegionFromArchive(i);
+					if (region != null)
+					{
+						regions.put(i, region);
+					}
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			});
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+
+		loaded = true;
+		regionCache.invalidateAll();
+	}
+
+	/**
+	 * Get a region. If all regions have not been loaded, the region is
+	 * loaded on demand and kept in a bounded cache.
+	 *
+	 * @param id region id
+	 * @return the region, or null if there is no such region
+	 */
+	public Region getRegion(int id)
+	{
+		if (id < 0 || id >= MAX_REGION)
+		{
+			return null;
+		}
+
+		if (loaded)
+		{
+			return regions.get(id);
+		}
+
+		try
+		{
+			return regionCache.get(id).orElse(null);
+		}
+		catch (ExecutionException ex)
+		{
+			throw new UncheckedIOException("unable to load region " + id, (IOException) ex.getCause());
+		}
+	}
+
+	boolean hasRegion(int i)
+	{
+		if (loaded)
+		{
+			return regions.containsKey(i);
 		}
+
+		int x = i >> 8;
+		int y = i & 0xFF;
+		return index.findArchiveByName("m" + x + "_" + y) != null
+			&& index.findArchiveByName("l" + x + "_" + y) != null;
 	}
 
 	public Region loadRegionFromArchive(int i) throws IOException
@@ -116,42 +205,81 @@ public class RegionLoader
 		return region;
 	}
 
+	/**
+	 * Find the regions at the edges of the map. This only decodes those
+	 * regions if all regions have not been loaded.
+	 */
 	public void calculateBounds()
 	{
-		for (Region region : regions.values())
+		int lowestXId = -1, lowestYId = -1;
+		int highestXId = -1, highestYId = -1;
+
+		for (int i = 0; i < MAX_REGION; ++i)
 		{
-			if (lowestX == null || region.getBaseX() < lowestX.getBaseX())
+			if (!hasRegion(i))
+			{
+				continue;
+			}
+
+			int x = i >> 8;
+			int y = i & 0xFF;
+
+			if (lowestXId == -1 || x < lowestXId >> 8)
 			{
-				lowestX = region;
+				lowestXId = i;
 			}
 
-			if (highestX == null || region.getBaseX() > highestX.getBaseX())
+			if (highestXId == -1 || x > highestXId >> 8)
 			{
-				highestX = region;
+				highestXId = i;
 			}
 
-			if (lowestY == null || region.getBaseY() < lowestY.getBaseY())
+			if (lowestYId == -1 || y < (lowestYId & 0xFF))
 			{
-				lowestY = region;
+				lowestYId = i;
 			}
 
-			if (highestY == null || region.getBaseY() > highestY.getBaseY())
+			if (highestYId == -1 || y > (highestYId & 0xFF))
 			{
-				highestY = region;
+				highestYId = i;
 			}
 		}
+
+		lowestX = getRegion(lowestXId);
+		highestX = getRegion(highestXId);
+		lowestY = getRegion(lowestYId);
+		highestY = getRegion(highestYId);
 	}
 
+	/**
+	 * Get all regions, loading them if they have not been loaded.
+	 */
 	public Collection<Region> getRegions()
 	{
-		return regions.values();
+		if (!loaded)
+		{
+			try
+			{
+				loadRegions();
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		return Collections.unmodifiableCollection(regions.values());
 	}
 
 	public Region findRegionForWorldCoordinates(int x, int y)
 	{
 		x >>>= 6;
 		y >>>= 6;
-		return regions.get((x << 8) | y);
+		if (y > 0xFF)
+		{
+			return null;
+		}
+		return getRegion((x << 8) | y);
 	}
 
 	public Region getLowestX()
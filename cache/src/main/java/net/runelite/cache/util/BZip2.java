@@ -83,4 +83,21 @@ public class BZip2
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress headerless bzip2 data whose decompressed length is known
+	 * ahead of time directly into the returned array.
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @param decompressedLength expected length of the decompressed data
+	 * @return
+	 * @throws IOException
+	 * @see BZip2Decompressor
+	 */
+	public static byte[] decompress(byte[] bytes, int off, int len, int decompressedLength) throws IOException
+	{
+		return BZip2Decompressor.decompress(bytes, off, len, decompressedLength);
+	}
 }
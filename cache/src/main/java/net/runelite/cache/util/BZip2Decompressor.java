@@ -0,0 +1,558 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decoder for the headerless bzip2 streams stored in cache containers.
+ * Containers are always compressed with a block size of 100k and the
+ * decompressed length is known up front, so blocks are decoded straight
+ * into the destination array using per-thread decoding tables.
+ */
+public class BZip2Decompressor
+{
+	private static final int BLOCK_SIZE = 100000; // 'BZh1'
+
+	private static final long BLOCK_MAGIC = 0x314159265359L;
+	private static final long END_MAGIC = 0x177245385090L;
+
+	private static final int RUNA = 0;
+	private static final int RUNB = 1;
+
+	private static final int MAX_GROUPS = 6;
+	private static final int MAX_ALPHA_SIZE = 258;
+	private static final int MAX_CODE_LEN = 23;
+	private static final int MAX_SELECTORS = 18002;
+	private static final int GROUP_SIZE = 50;
+	private static final int MIN_OUTPUT_SIZE = 4096;
+
+	private static final int[] CRC_TABLE = new int[256];
+
+	private static final ThreadLocal<BZip2Decompressor> DECOMPRESSOR = ThreadLocal.withInitial(BZip2Decompressor::new);
+
+	static
+	{
+		for (int i = 0; i < 256; ++i)
+		{
+			int c = i << 24;
+			for (int j = 0; j < 8; ++j)
+			{
+				c = (c & 0x80000000) != 0 ? (c << 1) ^ 0x04C11DB7 : c << 1;
+			}
+			CRC_TABLE[i] = c;
+		}
+	}
+
+	private byte[] in;
+	private int pos;
+	private int end;
+	private long bitBuffer;
+	private int bitCount;
+
+	private byte[] out;
+	private int outLimit;
+
+	private final int[] tt = new int[BLOCK_SIZE];
+	private final int[] unzftab = new int[256];
+	private final int[] cftab = new int[257];
+	private final byte[] seqToUnseq = new byte[256];
+	private final byte[] yy = new byte[256];
+	private final byte[] selectors = new byte[MAX_SELECTORS];
+	private final byte[][] lengths = new byte[MAX_GROUPS][MAX_ALPHA_SIZE];
+	private final int[][] limit = new int[MAX_GROUPS][MAX_CODE_LEN];
+	private final int[][] base = new int[MAX_GROUPS][MAX_CODE_LEN];
+	private final int[][] perm = new int[MAX_GROUPS][MAX_ALPHA_SIZE];
+	private final int[] minLens = new int[MAX_GROUPS];
+
+	private int origPtr;
+	private int nSelectors;
+	private int groupNo;
+	private int groupPos;
+	private int[] groupLimit;
+	private int[] groupBase;
+	private int[] groupPerm;
+	private int groupMinLen;
+
+	/**
+	 * Decompress headerless bzip2 data
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the compressed data
+	 * @param len length of the compressed data
+	 * @param decompressedLength expected length of the decompressed data
+	 * @return
+	 * @throws IOException if the data is corrupt or does not decompress to
+	 * exactly decompressedLength bytes
+	 */
+	public static byte[] decompress(byte[] bytes, int off, int len, int decompressedLength) throws IOException
+	{
+		BZip2Decompressor decompressor = DECOMPRESSOR.get();
+		try
+		{
+			return decompressor.decode(bytes, off, len, decompressedLength);
+		}
+		finally
+		{
+			decompressor.in = null;
+			decompressor.out = null;
+		}
+	}
+
+	private byte[] decode(byte[] bytes, int off, int len, int decompressedLength) throws IOException
+	{
+		in = bytes;
+		pos = off;
+		end = off + len;
+		bitBuffer = 0;
+		bitCount = 0;
+
+		// decompressedLength is not trusted until the stream has been decoded,
+		// as it may come from a container decrypted with the wrong key
+		out = new byte[(int) Math.min(decompressedLength, Math.max(MIN_OUTPUT_SIZE, (long) len * 4))];
+		outLimit = decompressedLength;
+
+		int outPos = 0;
+		int combinedCrc = 0;
+
+		for (;;)
+		{
+			long magic = ((long) readBits(24) << 24) | readBits(24);
+			if (magic == END_MAGIC)
+			{
+				if (readInt() != combinedCrc)
+				{
+					throw new IOException("bzip2 stream crc mismatch");
+				}
+				break;
+			}
+
+			if (magic != BLOCK_MAGIC)
+			{
+				throw new IOException("Bad bzip2 block header");
+			}
+
+			int storedCrc = readInt();
+			int nblock = readBlock();
+
+			int start = outPos;
+			outPos = writeBlock(nblock, outPos);
+
+			int crc = -1;
+			for (int i = start; i < outPos; ++i)
+			{
+				crc = (crc << 8) ^ CRC_TABLE[((crc >>> 24) ^ out[i]) & 0xFF];
+			}
+
+			if (~crc != storedCrc)
+			{
+				throw new IOException("bzip2 block crc mismatch");
+			}
+
+			combinedCrc = ((combinedCrc << 1) | (combinedCrc >>> 31)) ^ storedCrc;
+		}
+
+		if (outPos != outLimit)
+		{
+			throw new IOException("Decompressed length " + outPos + " != " + outLimit);
+		}
+
+		return out;
+	}
+
+	/**
+	 * Grow the output buffer to hold at least the given number of bytes
+	 *
+	 * @param length
+	 * @throws IOException if the output would exceed the expected length
+	 */
+	private void grow(int length) throws IOException
+	{
+		if (length > outLimit || length < 0)
+		{
+			throw new IOException("Decompressed data is larger than " + outLimit);
+		}
+
+		int size = (int) Math.min(outLimit, Math.max(length, (long) out.length * 2));
+		out = Arrays.copyOf(out, size);
+	}
+
+	/**
+	 * Read the block header, huffman tables and mtf/rle2 encoded symbols
+	 * of a block into tt.
+	 *
+	 * @return number of bytes in the block
+	 * @throws IOException
+	 */
+	private int readBlock() throws IOException
+	{
+		if (readBits(1) != 0)
+		{
+			throw new IOException("Randomised bzip2 blocks are not supported");
+		}
+
+		origPtr = readBits(24);
+
+		// symbol map
+		int nInUse = 0;
+		int inUse16 = readBits(16);
+		for (int i = 0; i < 16; ++i)
+		{
+			if ((inUse16 & (0x8000 >>> i)) != 0)
+			{
+				int inUse = readBits(16);
+				for (int j = 0; j < 16; ++j)
+				{
+					if ((inUse & (0x8000 >>> j)) != 0)
+					{
+						seqToUnseq[nInUse++] = (byte) (i * 16 + j);
+					}
+				}
+			}
+		}
+
+		if (nInUse == 0)
+		{
+			throw new IOException("bzip2 block uses no symbols");
+		}
+
+		int alphaSize = nInUse + 2;
+
+		int nGroups = readBits(3);
+		if (nGroups < 2 || nGroups > MAX_GROUPS)
+		{
+			throw new IOException("Invalid number of bzip2 huffman groups " + nGroups);
+		}
+
+		int selectorCount = readBits(15);
+		if (selectorCount < 1)
+		{
+			throw new IOException("Invalid number of bzip2 selectors");
+		}
+
+		// selectors are mtf encoded
+		byte[] mtf = new byte[]
+		{
+			0, 1, 2, 3, 4, 5
+		};
+		for (int i = 0; i < selectorCount; ++i)
+		{
+			int j = 0;
+			while (readBits(1) != 0)
+			{
+				if (++j >= nGroups)
+				{
+					throw new IOException("Invalid bzip2 selector");
+				}
+			}
+
+			byte v = mtf[j];
+			for (; j > 0; --j)
+			{
+				mtf[j] = mtf[j - 1];
+			}
+			mtf[0] = v;
+
+			if (i < MAX_SELECTORS)
+			{
+				selectors[i] = v;
+			}
+		}
+		nSelectors = Math.min(selectorCount, MAX_SELECTORS);
+
+		// delta encoded code lengths
+		for (int t = 0; t < nGroups; ++t)
+		{
+			byte[] len = lengths[t];
+			int curr = readBits(5);
+			int minLen = 32, maxLen = 0;
+			for (int i = 0; i < alphaSize; ++i)
+			{
+				for (;;)
+				{
+					if (curr < 1 || curr > 20)
+					{
+						throw new IOException("Invalid bzip2 code length");
+					}
+
+					if (readBits(1) == 0)
+					{
+						break;
+					}
+
+					curr += readBits(1) == 0 ? 1 : -1;
+				}
+
+				len[i] = (byte) curr;
+				minLen = Math.min(minLen, curr);
+				maxLen = Math.max(maxLen, curr);
+			}
+
+			createDecodeTables(limit[t], base[t], perm[t], len, minLen, maxLen, alphaSize);
+			minLens[t] = minLen;
+		}
+
+		// mtf and run length encoded symbols
+		int eob = nInUse + 1;
+		int nblock = 0;
+
+		Arrays.fill(unzftab, 0);
+		for (int i = 0; i < 256; ++i)
+		{
+			yy[i] = (byte) i;
+		}
+
+		groupNo = -1;
+		groupPos = 0;
+
+		int nextSym = nextSymbol();
+		while (nextSym != eob)
+		{
+			if (nextSym == RUNA || nextSym == RUNB)
+			{
+				int es = -1;
+				int n = 1;
+				do
+				{
+					if (n >= 2 * 1024 * 1024)
+					{
+						throw new IOException("bzip2 run is too long");
+					}
+
+					es += (nextSym + 1) * n;
+					n <<= 1;
+					nextSym = nextSymbol();
+				}
+				while (nextSym == RUNA || nextSym == RUNB);
+
+				++es;
+				if (nblock + es > BLOCK_SIZE)
+				{
+					throw new IOException("bzip2 block is too large");
+				}
+
+				int uc = seqToUnseq[yy[0] & 0xFF] & 0xFF;
+				unzftab[uc] += es;
+				Arrays.fill(tt, nblock, nblock + es, uc);
+				nblock += es;
+			}
+			else
+			{
+				if (nblock >= BLOCK_SIZE)
+				{
+					throw new IOException("bzip2 block is too large");
+				}
+
+				int nn = nextSym - 1;
+				byte v = yy[nn];
+				System.arraycopy(yy, 0, yy, 1, nn);
+				yy[0] = v;
+
+				int uc = seqToUnseq[v & 0xFF] & 0xFF;
+				++unzftab[uc];
+				tt[nblock++] = uc;
+
+				nextSym = nextSymbol();
+			}
+		}
+
+		if (origPtr < 0 || origPtr >= nblock)
+		{
+			throw new IOException("Invalid bzip2 block origin pointer");
+		}
+
+		return nblock;
+	}
+
+	/**
+	 * Undo the burrows-wheeler transform and the initial run length
+	 * encoding of a block, writing the result to out.
+	 *
+	 * @return the new output position
+	 * @throws IOException if the output would exceed the expected length
+	 */
+	private int writeBlock(int nblock, int outPos) throws IOException
+	{
+		cftab[0] = 0;
+		for (int i = 1; i <= 256; ++i)
+		{
+			cftab[i] = cftab[i - 1] + unzftab[i - 1];
+		}
+
+		for (int i = 0; i < nblock; ++i)
+		{
+			int uc = tt[i] & 0xFF;
+			tt[cftab[uc]++] |= i << 8;
+		}
+
+		int tPos = tt[origPtr] >>> 8;
+		int last = -1;
+		int run = 0;
+
+		for (int k = 0; k < nblock; ++k)
+		{
+			tPos = tt[tPos];
+			int ch = tPos & 0xFF;
+			tPos >>>= 8;
+
+			if (run == 4)
+			{
+				// four equal bytes are followed by a repeat count
+				if (outPos + ch > out.length)
+				{
+					grow(outPos + ch);
+				}
+
+				Arrays.fill(out, outPos, outPos + ch, (byte) last);
+				outPos += ch;
+				run = 0;
+				continue;
+			}
+
+			if (outPos >= out.length)
+			{
+				grow(outPos + 1);
+			}
+
+			out[outPos++] = (byte) ch;
+
+			if (ch == last)
+			{
+				++run;
+			}
+			else
+			{
+				last = ch;
+				run = 1;
+			}
+		}
+
+		return outPos;
+	}
+
+	private int nextSymbol() throws IOException
+	{
+		if (groupPos == 0)
+		{
+			if (++groupNo >= nSelectors)
+			{
+				throw new IOException("bzip2 selectors exhausted");
+			}
+
+			int g = selectors[groupNo];
+			groupPos = GROUP_SIZE;
+			groupLimit = limit[g];
+			groupBase = base[g];
+			groupPerm = perm[g];
+			groupMinLen = minLens[g];
+		}
+
+		--groupPos;
+
+		int zn = groupMinLen;
+		int zvec = readBits(zn);
+		while (zvec > groupLimit[zn])
+		{
+			if (++zn > 20)
+			{
+				throw new IOException("Invalid bzip2 huffman code");
+			}
+
+			zvec = (zvec << 1) | readBits(1);
+		}
+
+		int idx = zvec - groupBase[zn];
+		if (idx < 0 || idx >= MAX_ALPHA_SIZE)
+		{
+			throw new IOException("Invalid bzip2 huffman code");
+		}
+
+		return groupPerm[idx];
+	}
+
+	private static void createDecodeTables(int[] limit, int[] base, int[] perm, byte[] length,
+		int minLen, int maxLen, int alphaSize)
+	{
+		int pp = 0;
+		for (int i = minLen; i <= maxLen; ++i)
+		{
+			for (int j = 0; j < alphaSize; ++j)
+			{
+				if (length[j] == i)
+				{
+					perm[pp++] = j;
+				}
+			}
+		}
+
+		Arrays.fill(base, 0);
+		for (int i = 0; i < alphaSize; ++i)
+		{
+			++base[length[i] + 1];
+		}
+
+		for (int i = 1; i < MAX_CODE_LEN; ++i)
+		{
+			base[i] += base[i - 1];
+		}
+
+		Arrays.fill(limit, 0);
+		int vec = 0;
+		for (int i = minLen; i <= maxLen; ++i)
+		{
+			vec += base[i + 1] - base[i];
+			limit[i] = vec - 1;
+			vec <<= 1;
+		}
+
+		for (int i = minLen + 1; i <= maxLen; ++i)
+		{
+			base[i] = ((limit[i - 1] + 1) << 1) - base[i];
+		}
+	}
+
+	private int readBits(int n) throws IOException
+	{
+		while (bitCount < n)
+		{
+			if (pos >= end)
+			{
+				throw new IOException("Unexpected end of bzip2 stream");
+			}
+
+			bitBuffer = (bitBuffer << 8) | (in[pos++] & 0xFF);
+			bitCount += 8;
+		}
+
+		bitCount -= n;
+		return (int) (bitBuffer >>> bitCount) & ((1 << n) - 1);
+	}
+
+	private int readInt() throws IOException
+	{
+		return (readBits(16) << 16) | readBits(16);
+	}
+}
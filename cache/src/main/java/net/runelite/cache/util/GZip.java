@@ -30,8 +30,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
 import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +45,16 @@ public class GZip
 {
 	private static final Logger logger = LoggerFactory.getLogger(GZip.class);
 
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private static final int TRAILER_SIZE = 8;
+	private static final int MIN_OUTPUT_SIZE = 4096;
+
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -64,4 +79,152 @@ public class GZip
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompress gzip data whose decompressed length is known ahead of
+	 * time, inflating directly into the returned array with a per-thread
+	 * inflater. The length is not trusted for allocation, as it is read
+	 * before the data can be verified; the output grows up to it instead.
+	 *
+	 * @param bytes compressed data
+	 * @param off offset of the gzip stream
+	 * @param len length of the gzip stream
+	 * @param decompressedLength expected length of the decompressed data
+	 * @return
+	 * @throws IOException
+	 */
+	public static byte[] decompress(byte[] bytes, int off, int len, int decompressedLength) throws IOException
+	{
+		int end = off + len;
+		int pos = skipHeader(bytes, off, end);
+
+		if (decompressedLength < 0)
+		{
+			throw new ZipException("Invalid decompressed length " + decompressedLength);
+		}
+
+		byte[] out = new byte[(int) Math.min(decompressedLength, Math.max(MIN_OUTPUT_SIZE, (long) len * 4))];
+
+		Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(bytes, pos, end - pos);
+
+		try
+		{
+			int n = 0;
+			while (!inflater.finished())
+			{
+				if (n == decompressedLength)
+				{
+					// the output is full; this should only consume the end of the stream
+					if (inflater.inflate(new byte[1]) != 0)
+					{
+						throw new ZipException("Decompressed data is larger than " + decompressedLength);
+					}
+				}
+				else if (n == out.length)
+				{
+					out = Arrays.copyOf(out, (int) Math.min(decompressedLength, (long) out.length * 2));
+				}
+				else
+				{
+					n += inflater.inflate(out, n, out.length - n);
+				}
+
+				if (!inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					throw new ZipException("Unexpected end of gzip stream");
+				}
+			}
+
+			if (n != decompressedLength)
+			{
+				throw new ZipException("Decompressed length " + n + " != " + decompressedLength);
+			}
+		}
+		catch (DataFormatException ex)
+		{
+			throw new ZipException(ex.getMessage());
+		}
+
+		int trailer = end - inflater.getRemaining();
+		if (trailer + TRAILER_SIZE > end)
+		{
+			throw new ZipException("Missing gzip trailer");
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(out, 0, out.length);
+
+		if (readIntLE(bytes, trailer) != (int) crc.getValue()
+			|| readIntLE(bytes, trailer + 4) != decompressedLength)
+		{
+			throw new ZipException("Corrupt gzip trailer");
+		}
+
+		return out;
+	}
+
+	private static int skipHeader(byte[] bytes, int pos, int end) throws IOException
+	{
+		if (end - pos < 10 + TRAILER_SIZE
+			|| (bytes[pos] & 0xFF) != 0x1F || (bytes[pos + 1] & 0xFF) != 0x8B)
+		{
+			throw new ZipException("Not in GZIP format");
+		}
+
+		if (bytes[pos + 2] != 8)
+		{
+			throw new ZipException("Unsupported compression method");
+		}
+
+		int flags = bytes[pos + 3] & 0xFF;
+		pos += 10;
+
+		if ((flags & FEXTRA) != 0)
+		{
+			pos += 2 + ((bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8);
+		}
+
+		if ((flags & FNAME) != 0)
+		{
+			pos = skipString(bytes, pos, end);
+		}
+
+		if ((flags & FCOMMENT) != 0)
+		{
+			pos = skipString(bytes, pos, end);
+		}
+
+		if ((flags & FHCRC) != 0)
+		{
+			pos += 2;
+		}
+
+		if (pos >= end)
+		{
+			throw new ZipException("Truncated gzip header");
+		}
+
+		return pos;
+	}
+
+	private static int skipString(byte[] bytes, int pos, int end) throws IOException
+	{
+		while (pos < end)
+		{
+			if (bytes[pos++] == 0)
+			{
+				return pos;
+			}
+		}
+
+		throw new ZipException("Truncated gzip header");
+	}
+
+	private static int readIntLE(byte[] bytes, int pos)
+	{
+		return (bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8
+			| (bytes[pos + 2] & 0xFF) << 16 | (bytes[pos + 3] & 0xFF) << 24;
+	}
 }
@@ -24,65 +24,106 @@
  */
 package net.runelite.cache.util;
 
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-
 public class Xtea
 {
 	private static final int GOLDEN_RATIO = 0x9E3779B9;
 
 	private static final int ROUNDS = 32;
 
-	private final int[] key;
+	// per round key schedule, sum + key[..] for each half round
+	private final int[] schedule0 = new int[ROUNDS];
+	private final int[] schedule1 = new int[ROUNDS];
 
 	public Xtea(int[] key)
 	{
-		this.key = key;
+		int sum = 0;
+		for (int i = 0; i < ROUNDS; ++i)
+		{
+			schedule0[i] = sum + key[sum & 3];
+			sum += GOLDEN_RATIO;
+			schedule1[i] = sum + key[(sum >>> 11) & 3];
+		}
 	}
 
 	public byte[] encrypt(byte[] data, int len)
 	{
-		ByteBuf buf = Unpooled.wrappedBuffer(data, 0, len);
-		ByteBuf out = Unpooled.buffer(len);
-		int numBlocks = len / 8;
-		for (int block = 0; block < numBlocks; ++block)
+		byte[] out = new byte[len];
+		System.arraycopy(data, 0, out, 0, len);
+		encrypt(out, 0, len);
+		return out;
+	}
+
+	public byte[] decrypt(byte[] data, int len)
+	{
+		byte[] out = new byte[len];
+		System.arraycopy(data, 0, out, 0, len);
+		decrypt(out, 0, len);
+		return out;
+	}
+
+	/**
+	 * Encrypt data in place. Trailing bytes which do not form a complete
+	 * block are left as is.
+	 *
+	 * @param data data to encrypt
+	 * @param offset offset of the data to encrypt
+	 * @param len length of the data to encrypt
+	 */
+	public void encrypt(byte[] data, int offset, int len)
+	{
+		final int[] schedule0 = this.schedule0, schedule1 = this.schedule1;
+		int end = offset + (len & ~7);
+		for (int pos = offset; pos < end; pos += 8)
 		{
-			int v0 = buf.readInt();
-			int v1 = buf.readInt();
-			int sum = 0;
+			int v0 = getInt(data, pos);
+			int v1 = getInt(data, pos + 4);
 			for (int i = 0; i < ROUNDS; ++i)
 			{
-				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
-				sum += GOLDEN_RATIO;
-				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
+				v0 += (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ schedule0[i];
+				v1 += (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ schedule1[i];
 			}
-			out.writeInt(v0);
-			out.writeInt(v1);
+			putInt(data, pos, v0);
+			putInt(data, pos + 4, v1);
 		}
-		out.writeBytes(buf);
-		return out.array();
 	}
 
-	public byte[] decrypt(byte[] data, int len)
+	/**
+	 * Decrypt data in place. Trailing bytes which do not form a complete
+	 * block are left as is.
+	 *
+	 * @param data data to decrypt
+	 * @param offset offset of the data to decrypt
+	 * @param len length of the data to decrypt
+	 */
+	public void decrypt(byte[] data, int offset, int len)
 	{
-		ByteBuf buf = Unpooled.wrappedBuffer(data, 0, len);
-		ByteBuf out = Unpooled.buffer(len);
-		int numBlocks = len / 8;
-		for (int block = 0; block < numBlocks; ++block)
+		final int[] schedule0 = this.schedule0, schedule1 = this.schedule1;
+		int end = offset + (len & ~7);
+		for (int pos = offset; pos < end; pos += 8)
 		{
-			int v0 = buf.readInt();
-			int v1 = buf.readInt();
-			int sum = GOLDEN_RATIO * ROUNDS;
-			for (int i = 0; i < ROUNDS; ++i)
+			int v0 = getInt(data, pos);
+			int v1 = getInt(data, pos + 4);
+			for (int i = ROUNDS - 1; i >= 0; --i)
 			{
-				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ (sum + key[(sum >>> 11) & 3]);
-				sum -= GOLDEN_RATIO;
-				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ (sum + key[sum & 3]);
+				v1 -= (((v0 << 4) ^ (v0 >>> 5)) + v0) ^ schedule1[i];
+				v0 -= (((v1 << 4) ^ (v1 >>> 5)) + v1) ^ schedule0[i];
 			}
-			out.writeInt(v0);
-			out.writeInt(v1);
+			putInt(data, pos, v0);
+			putInt(data, pos + 4, v1);
 		}
-		out.writeBytes(buf);
-		return out.array();
+	}
+
+	private static int getInt(byte[] data, int pos)
+	{
+		return ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16)
+			| ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+	}
+
+	private static void putInt(byte[] data, int pos, int value)
+	{
+		data[pos] = (byte) (value >> 24);
+		data[pos + 1] = (byte) (value >> 16);
+		data[pos + 2] = (byte) (value >> 8);
+		data[pos + 3] = (byte) value;
 	}
 }
@@ -27,7 +27,9 @@ package net.runelite.cache;
 
 import java.io.File;
 import java.io.IOException;
+import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.fs.Store;
+import static org.junit.Assert.assertEquals;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -60,4 +62,23 @@ public class ItemManagerTest
 		logger.info("Dumped to {}, java {}", dumpDir, javaDir);
 	}
 
+	@Test
+	public void testLazy() throws IOException
+	{
+		Store store = new Store(StoreLocation.LOCATION);
+		store.load();
+
+		ItemManager eager = new ItemManager(store);
+		eager.load();
+
+		ItemManager lazy = new ItemManager(store);
+		lazy.load(true);
+
+		assertEquals(eager.getItems().size(), lazy.getItems().size());
+		for (ItemDefinition def : eager.getItems())
+		{
+			assertEquals(def.name, lazy.getItem(def.id).name);
+		}
+	}
+
 }
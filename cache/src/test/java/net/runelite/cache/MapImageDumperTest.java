@@ -31,6 +31,8 @@ import javax.imageio.ImageIO;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -71,6 +73,78 @@ public class MapImageDumperTest
 		}
 	}
 
+	@Test
+	@Ignore
+	public void dumpTiles() throws IOException
+	{
+		File base = StoreLocation.LOCATION,
+			outDir = folder.newFolder();
+
+		try (Store store = new Store(base))
+		{
+			store.load();
+
+			MapImageDumper dumper = new MapImageDumper(store);
+			dumper.load();
+
+			for (int i = 0; i < Region.Z; ++i)
+			{
+				File planeDir = new File(outDir, "plane-" + i);
+				dumper.dumpTiles(i, planeDir);
+				logger.info("Wrote tiles to {}", planeDir);
+			}
+		}
+	}
+
+	@Test
+	public void testTileFile()
+	{
+		File outDir = new File("tiles");
+		assertEquals(new File(new File(new File(outDir, "3"), "5"), "7.png"), MapImageDumper.tileFile(outDir, 3, 5, 7));
+	}
+
+	@Test
+	public void testDownscaleTile() throws IOException
+	{
+		File outDir = folder.newFolder();
+
+		// the four tiles under tile 0/0/0, with 1/1/1 missing
+		int[] colors = {0xFF0000, 0x00FF00, 0x0000FF};
+		int size = 0;
+		for (int i = 0; i < colors.length; ++i)
+		{
+			BufferedImage tile = solidTile(colors[i]);
+			size = tile.getWidth();
+			MapImageDumper.writeTile(tile, outDir, 1, i % 2, i / 2);
+		}
+
+		assertTrue(MapImageDumper.tileFile(outDir, 1, 1, 0).exists());
+
+		BufferedImage image = MapImageDumper.downscaleTile(outDir, 1, 0, 0);
+		assertEquals(size, image.getWidth());
+		assertEquals(size, image.getHeight());
+
+		int quarter = size / 4;
+		assertEquals(0xFF0000, image.getRGB(quarter, quarter) & 0xFFFFFF);
+		assertEquals(0x00FF00, image.getRGB(size - quarter, quarter) & 0xFFFFFF);
+		assertEquals(0x0000FF, image.getRGB(quarter, size - quarter) & 0xFFFFFF);
+		assertEquals(0, image.getRGB(size - quarter, size - quarter) & 0xFFFFFF);
+	}
+
+	private static BufferedImage solidTile(int rgb)
+	{
+		int size = Region.X * 4;
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < size; ++x)
+		{
+			for (int y = 0; y < size; ++y)
+			{
+				image.setRGB(x, y, rgb);
+			}
+		}
+		return image;
+	}
+
 	@Test
 	@Ignore
 	public void dumpRegions() throws Exception
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ArchiveCacheTest
+{
+	@Test
+	public void testGet() throws Exception
+	{
+		ArchiveCache cache = new ArchiveCache(1024);
+		AtomicInteger loads = new AtomicInteger();
+		byte[] data = new byte[100];
+
+		byte[] b = cache.get(2, 3, 42, () ->
+		{
+			loads.incrementAndGet();
+			return data;
+		});
+		assertSame(data, b);
+
+		b = cache.get(2, 3, 42, () ->
+		{
+			loads.incrementAndGet();
+			return null;
+		});
+		assertSame(data, b);
+		assertEquals(1, loads.get());
+
+		// modified archive
+		b = cache.get(2, 3, 43, () ->
+		{
+			loads.incrementAndGet();
+			return null;
+		});
+		assertNull(b);
+		assertEquals(2, loads.get());
+
+		byte[] hash = new byte[32];
+		hash[0] = 1;
+		cache.get(hash, () -> data);
+		assertSame(data, cache.get(hash.clone(), () -> null));
+	}
+
+	@Test
+	public void testMaximumSize() throws Exception
+	{
+		ArchiveCache cache = new ArchiveCache(1024);
+		for (int i = 0; i < 64; ++i)
+		{
+			int id = i;
+			cache.get(0, i, 0, () -> new byte[]{(byte) id});
+			cache.get(1, i, 0, () -> new byte[100]);
+		}
+
+		// the budget holds at most 10 of the larger archives
+		int hits = 0;
+		for (int i = 0; i < 64; ++i)
+		{
+			if (cache.get(1, i, 0, () -> null) != null)
+			{
+				++hits;
+			}
+		}
+		assertTrue(hits <= 10);
+
+		byte[] b = cache.get(0, 63, 0, () -> new byte[]{63});
+		assertArrayEquals(new byte[]{63}, b);
+	}
+}
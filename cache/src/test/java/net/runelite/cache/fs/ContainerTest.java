@@ -26,8 +26,12 @@ package net.runelite.cache.fs;
 
 import java.io.IOException;
 import java.util.Random;
+import static net.runelite.cache.fs.jagex.CompressionType.BZ2;
 import static net.runelite.cache.fs.jagex.CompressionType.GZ;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 public class ContainerTest
@@ -52,4 +56,101 @@ public class ContainerTest
 		assertArrayEquals(data, container.data);
 	}
 
+	@Test
+	public void testDecompressSlice() throws IOException
+	{
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{ GZ, BZ2 })
+		{
+			Container container = new Container(compression, 42);
+			container.compress(data, keys);
+			byte[] compressedData = container.data;
+
+			byte[] slice = new byte[compressedData.length + 16];
+			System.arraycopy(compressedData, 0, slice, 8, compressedData.length);
+
+			container = Container.decompress(slice, 8, compressedData.length, keys);
+			assertArrayEquals(data, container.data);
+			assertEquals(42, container.revision);
+			assertEquals(compression, container.compression);
+		}
+	}
+
+	@Test
+	public void testFindKey() throws IOException
+	{
+		int[][] candidates = new int[][]
+		{
+			{ 1, 2, 3, 4 },
+			{ 4, 8, 15, 16 },
+			{ 23, 42, 4, 8 }
+		};
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		Container container = new Container(GZ, -1);
+		container.compress(data, candidates[1]);
+		byte[] compressedData = container.data;
+		byte[] original = compressedData.clone();
+
+		assertEquals(1, Container.findKey(compressedData, candidates));
+		assertEquals(-1, Container.findKey(compressedData, new int[][]{ candidates[0], candidates[2] }));
+		assertArrayEquals(original, compressedData);
+	}
+
+	@Test
+	public void testCheckKey() throws IOException
+	{
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+		int[] wrongKeys = new int[]
+		{
+			16, 15, 8, 4
+		};
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{ GZ, BZ2 })
+		{
+			Container container = new Container(compression, -1);
+			container.compress(data, keys);
+			byte[] compressedData = container.data;
+
+			assertTrue(Container.checkKey(compressedData, keys));
+			assertFalse(Container.checkKey(compressedData, wrongKeys));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testDecompressWrongKey() throws IOException
+	{
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+		int[] wrongKeys = new int[]
+		{
+			16, 15, 8, 4
+		};
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		Container container = new Container(BZ2, -1);
+		container.compress(data, keys);
+
+		// the decrypted length is garbage, and must be rejected rather than allocated
+		Container.decompress(container.data, wrongKeys);
+	}
 }
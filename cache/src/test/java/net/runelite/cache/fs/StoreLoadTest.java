@@ -27,6 +27,9 @@ package net.runelite.cache.fs;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.runelite.cache.fs.jagex.DiskStorage;
 import net.runelite.cache.StoreLocation;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -47,6 +50,29 @@ public class StoreLoadTest
 		}
 	}
 
+	@Test
+	public void testLoadParallel() throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (Store store = new Store(StoreLocation.LOCATION);
+			Store parallelStore = new Store(new DiskStorage(StoreLocation.LOCATION, true)))
+		{
+			store.load();
+			parallelStore.loadParallel(executor);
+
+			for (Index index : parallelStore.getIndexes())
+			{
+				Assert.assertTrue(index.isLoaded());
+			}
+
+			Assert.assertTrue(store.equals(parallelStore));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testSave() throws IOException
 	{
@@ -26,6 +26,8 @@ package net.runelite.cache.fs.jagex;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.fs.Container;
 import org.junit.Assert;
@@ -167,4 +169,73 @@ public class DataFileTest
 		Assert.assertEquals("testtesttesttest1", str);
 		Assert.assertEquals(42, res2.revision);
 	}
+
+	@Test
+	public void testMapped() throws IOException
+	{
+		File file = folder.newFile();
+		DataFile df = new DataFile(file, true);
+
+		byte[] b = new byte[4096];
+		for (int i = 0; i < b.length; ++i)
+		{
+			b[i] = (byte) i;
+		}
+
+		Container container = new Container(CompressionType.NONE, 0);
+		container.compress(b, null);
+		DataFileWriteResult res = df.write(42, 3, container.data);
+
+		byte[] compressedData = df.read(42, 3, res.sector, res.compressedLength);
+		Assert.assertArrayEquals(b, Container.decompress(compressedData, null).data);
+
+		// grow the file past the current mapping
+		container = new Container(CompressionType.NONE, 0);
+		container.compress("test".getBytes(), null);
+		DataFileWriteResult res2 = df.write(42, 0x1FFFF, container.data);
+
+		compressedData = df.read(42, 0x1FFFF, res2.sector, res2.compressedLength);
+		Assert.assertEquals("test", new String(Container.decompress(compressedData, null).data));
+
+		Assert.assertNull(df.read(42, 4, res.sector, res.compressedLength));
+		df.close();
+	}
+
+	@Test
+	public void testOverwrite() throws IOException
+	{
+		File file = folder.newFile();
+		DataFile df = new DataFile(file);
+		IndexFile index = new IndexFile(42, folder.newFile());
+		Random random = new Random(42L);
+
+		byte[] a = new byte[2000];
+		random.nextBytes(a);
+		DataFileWriteResult res = df.write(42, 3, a);
+		index.write(new IndexEntry(index, 3, res.sector, res.compressedLength));
+
+		byte[] b = new byte[1000];
+		random.nextBytes(b);
+		DataFileWriteResult res2 = df.write(42, 4, b);
+		index.write(new IndexEntry(index, 4, res2.sector, res2.compressedLength));
+
+		long length = file.length();
+		df.buildFreeSectorMap(Arrays.asList(index.read(3), index.read(4)));
+
+		// reuses the start of the existing chain, and frees the rest
+		byte[] a2 = new byte[600];
+		random.nextBytes(a2);
+		DataFileWriteResult res3 = df.write(42, 3, a2, index.read(3));
+		Assert.assertEquals(res.sector, res3.sector);
+
+		// fits into the freed sectors
+		byte[] c = new byte[1000];
+		random.nextBytes(c);
+		DataFileWriteResult res4 = df.write(42, 5, c);
+
+		Assert.assertEquals(length, file.length());
+		Assert.assertArrayEquals(a2, df.read(42, 3, res3.sector, res3.compressedLength));
+		Assert.assertArrayEquals(b, df.read(42, 4, res2.sector, res2.compressedLength));
+		Assert.assertArrayEquals(c, df.read(42, 5, res4.sector, res4.compressedLength));
+	}
 }
@@ -25,6 +25,7 @@
 package net.runelite.cache.fs.jagex;
 
 import java.io.File;
+import java.io.IOException;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
@@ -99,4 +100,147 @@ public class DiskStorageTest
 		}
 	}
 
+	@Test
+	public void testCompact() throws Exception
+	{
+		File file = folder.newFolder();
+		File compacted = folder.newFolder();
+		DiskStorage storage = new DiskStorage(file);
+		try (Store store = new Store(storage))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 2; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				FileData[] fileData = new FileData[1];
+				archive.setFileData(fileData);
+				fileData[0] = new FileData();
+			}
+
+			for (int i = 0; i < 2; ++i)
+			{
+				// the second save overwrites the first
+				for (Archive archive : index.getArchives())
+				{
+					Container container = new Container(archive.getCompression(), -1);
+					container.compress(("test" + i + archive.getArchiveId()).getBytes(), null);
+					storage.saveArchive(archive, container.data);
+				}
+				store.save();
+			}
+
+			storage.compact(compacted);
+		}
+
+		assertTrue(new File(compacted, "main_file_cache.dat2").length() <= new File(file, "main_file_cache.dat2").length());
+
+		storage = new DiskStorage(compacted);
+		try (Store store = new Store(storage))
+		{
+			store.load();
+			Index index = store.findIndex(0);
+			assertEquals(2, index.getArchives().size());
+
+			for (Archive archive : index.getArchives())
+			{
+				byte[] data = archive.decompress(storage.loadArchive(archive));
+				assertArrayEquals(("test1" + archive.getArchiveId()).getBytes(), data);
+			}
+		}
+	}
+
+	@Test
+	public void testCompactIntoSelf() throws Exception
+	{
+		File file = folder.newFolder();
+		DiskStorage storage = new DiskStorage(file);
+		try (Store store = new Store(storage))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			FileData[] fileData = new FileData[1];
+			archive.setFileData(fileData);
+			fileData[0] = new FileData();
+
+			Container container = new Container(archive.getCompression(), -1);
+			container.compress("test".getBytes(), null);
+			storage.saveArchive(archive, container.data);
+			store.save();
+
+			try
+			{
+				storage.compact(new File(file, "."));
+				fail();
+			}
+			catch (IOException ex)
+			{
+				// expected
+			}
+
+			// nor over an existing cache
+			File compacted = folder.newFolder();
+			storage.compact(compacted);
+			try
+			{
+				storage.compact(compacted);
+				fail();
+			}
+			catch (IOException ex)
+			{
+				// expected
+			}
+
+			// the source must be left intact
+			assertArrayEquals("test".getBytes(), archive.decompress(storage.loadArchive(archive)));
+		}
+	}
+
+	@Test
+	public void testArchiveCommittedOnClose() throws Exception
+	{
+		File file = folder.newFolder();
+		DiskStorage storage = new DiskStorage(file);
+		try (Store store = new Store(storage))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			FileData[] fileData = new FileData[1];
+			archive.setFileData(fileData);
+			fileData[0] = new FileData();
+
+			Container container = new Container(archive.getCompression(), -1);
+			container.compress("test".getBytes(), null);
+			storage.saveArchive(archive, container.data);
+			store.save();
+
+			assertFalse(index.isDirty());
+		}
+
+		storage = new DiskStorage(file);
+		try (Store store = new Store(storage))
+		{
+			store.load();
+			Index index = store.findIndex(0);
+			Archive archive = index.getArchive(0);
+			assertFalse(index.isDirty());
+
+			// written, but the store is never saved
+			Container container = new Container(archive.getCompression(), -1);
+			container.compress("test2".getBytes(), null);
+			storage.saveArchive(archive, container.data);
+			assertTrue(index.isDirty());
+			assertArrayEquals("test2".getBytes(), archive.decompress(storage.loadArchive(archive)));
+		}
+
+		storage = new DiskStorage(file);
+		try (Store store = new Store(storage))
+		{
+			store.load();
+			Archive archive = store.findIndex(0).getArchive(0);
+			// the reference table still has the crc of the saved archive
+			assertArrayEquals("test2".getBytes(), Container.decompress(storage.loadArchive(archive), null).data);
+		}
+
+		assertFalse(new File(file, "main_file_cache.journal").exists());
+	}
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.region;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import static net.runelite.cache.fs.jagex.CompressionType.GZ;
+import net.runelite.cache.util.Djb2;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RegionLoaderTest
+{
+	// regions with no xtea keys, so only their map archive is read
+	private static final List<Integer> REGIONS = Arrays.asList(id(10, 20), id(11, 21), id(12, 20));
+
+	private final AtomicInteger loads = new AtomicInteger();
+	private Store store;
+
+	private static int id(int x, int y)
+	{
+		return x << 8 | y;
+	}
+
+	@Before
+	public void before() throws IOException
+	{
+		// every tile of the terrain is empty
+		Container container = new Container(GZ, -1);
+		container.compress(new byte[Region.Z * Region.X * Region.Y], null);
+		byte[] mapData = container.data;
+		int crc = Container.decompress(mapData, null).crc;
+
+		store = new Store(new Storage()
+		{
+			@Override
+			public void init(Store store)
+			{
+			}
+
+			@Override
+			public void close()
+			{
+			}
+
+			@Override
+			public void load(Store store)
+			{
+			}
+
+			@Override
+			public void save(Store store)
+			{
+			}
+
+			@Override
+			public byte[] loadArchive(Archive archive)
+			{
+				loads.incrementAndGet();
+				return mapData;
+			}
+
+			@Override
+			public void saveArchive(Archive archive, byte[] data)
+			{
+				throw new UnsupportedOperationException();
+			}
+		});
+
+		Index index = store.addIndex(IndexType.MAPS.getNumber());
+		int archiveId = 0;
+		for (int region : REGIONS)
+		{
+			int x = region >> 8;
+			int y = region & 0xFF;
+
+			Archive map = index.addArchive(archiveId++);
+			map.setNameHash(Djb2.hash("m" + x + "_" + y));
+			map.setCrc(crc);
+
+			Archive land = index.addArchive(archiveId++);
+			land.setNameHash(Djb2.hash("l" + x + "_" + y));
+		}
+	}
+
+	@Test
+	public void testGetRegion()
+	{
+		RegionLoader loader = new RegionLoader(store);
+
+		Region region = loader.getRegion(id(11, 21));
+		assertNotNull(region);
+		assertEquals(id(11, 21), region.getRegionID());
+		assertEquals(1, loads.get());
+
+		// decoded regions are kept
+		assertNotNull(loader.getRegion(id(11, 21)));
+		assertEquals(1, loads.get());
+
+		// missing regions are found without decoding anything
+		assertNull(loader.getRegion(id(11, 20)));
+		assertNull(loader.getRegion(-1));
+		assertNull(loader.getRegion(RegionLoader.MAX_REGION));
+		assertFalse(loader.hasRegion(id(11, 20)));
+		assertTrue(loader.hasRegion(id(12, 20)));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testLoadRegions() throws IOException
+	{
+		RegionLoader serial = new RegionLoader(store);
+		Set<Integer> serialIds = new HashSet<>();
+		for (int i = 0; i < RegionLoader.MAX_REGION; ++i)
+		{
+			if (serial.loadRegionFromArchive(i) != null)
+			{
+				serialIds.add(i);
+			}
+		}
+		serial.calculateBounds();
+
+		RegionLoader parallel = new RegionLoader(store);
+		parallel.loadRegions();
+		parallel.calculateBounds();
+
+		Set<Integer> parallelIds = new HashSet<>();
+		for (Region region : parallel.getRegions())
+		{
+			parallelIds.add(region.getRegionID());
+		}
+
+		assertEquals(new HashSet<>(REGIONS), serialIds);
+		assertEquals(serialIds, parallelIds);
+
+		assertEquals(id(10, 20), parallel.getLowestX().getRegionID());
+		assertEquals(id(12, 20), parallel.getHighestX().getRegionID());
+		assertEquals(id(10, 20), parallel.getLowestY().getRegionID());
+		assertEquals(id(11, 21), parallel.getHighestY().getRegionID());
+
+		assertEquals(serial.getLowestX().getRegionID(), parallel.getLowestX().getRegionID());
+		assertEquals(serial.getHighestX().getRegionID(), parallel.getHighestX().getRegionID());
+		assertEquals(serial.getLowestY().getRegionID(), parallel.getLowestY().getRegionID());
+		assertEquals(serial.getHighestY().getRegionID(), parallel.getHighestY().getRegionID());
+	}
+}
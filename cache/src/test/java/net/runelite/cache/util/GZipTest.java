@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import org.junit.Test;
+
+public class GZipTest
+{
+	@Test
+	public void testDecompress() throws IOException
+	{
+		Random random = new Random(42L);
+
+		// the larger sizes need the output to grow past its initial size
+		for (int size : new int[]{ 0, 1, 1024, 250000 })
+		{
+			byte[] data = new byte[size];
+			for (int i = 0; i < size; ++i)
+			{
+				data[i] = (byte) (i % 1000 < 500 ? random.nextInt(4) : 'a');
+			}
+
+			byte[] compressed = GZip.compress(data);
+			assertArrayEquals(data, GZip.decompress(compressed, 0, compressed.length, size));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongLength() throws IOException
+	{
+		byte[] compressed = GZip.compress("testtesttest".getBytes());
+		GZip.decompress(compressed, 0, compressed.length, 11);
+	}
+
+	@Test(expected = IOException.class)
+	public void testUntrustedLength() throws IOException
+	{
+		// a length read with the wrong xtea key must not be allocated up front
+		byte[] compressed = GZip.compress("testtesttest".getBytes());
+		GZip.decompress(compressed, 0, compressed.length, Integer.MAX_VALUE);
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException
+	{
+		byte[] data = new byte[4096];
+		new Random(42L).nextBytes(data);
+
+		byte[] compressed = GZip.compress(data);
+		compressed[compressed.length - 6] ^= 0x10;
+		GZip.decompress(compressed, 0, compressed.length, data.length);
+	}
+}
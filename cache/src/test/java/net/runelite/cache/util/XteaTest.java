@@ -52,4 +52,48 @@ public class XteaTest
 
 		assertArrayEquals(data, decData);
 	}
+
+	@Test
+	public void testDecryptInPlace()
+	{
+		int[] key = new int[]
+		{
+			4, 8, 15, 16
+		};
+		byte[] encrypted = new byte[]
+		{
+			0, 0, 121, -18, 48, 64, 120, -42, -113, 77, 116, 101, 115, 116, 49
+		};
+
+		Xtea xtea = new Xtea(key);
+		xtea.decrypt(encrypted, 2, encrypted.length - 2);
+
+		byte[] expected = new byte[]
+		{
+			0, 0, 't', 'e', 's', 't', 't', 'e', 's', 't', 't', 'e', 's', 't', '1'
+		};
+		assertArrayEquals(expected, encrypted);
+	}
+
+	@Test
+	public void testEncryptInPlace()
+	{
+		int[] key = new int[]
+		{
+			4, 8, 15, 16
+		};
+		byte[] data = new byte[]
+		{
+			0, 0, 't', 'e', 's', 't', 't', 'e', 's', 't', 't', 'e', 's', 't', '1'
+		};
+
+		Xtea xtea = new Xtea(key);
+		xtea.encrypt(data, 2, data.length - 2);
+
+		byte[] expected = new byte[]
+		{
+			0, 0, 121, -18, 48, 64, 120, -42, -113, 77, 116, 101, 115, 116, 49
+		};
+		assertArrayEquals(expected, data);
+	}
 }
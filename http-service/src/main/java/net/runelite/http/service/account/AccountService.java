@@ -223,6 +223,9 @@ public class AccountService
 			logger.info("Created session for user {}", userInfo.getEmail());
 		}
 
+		// the client may have checked the session before it existed
+		auth.invalidate(state.getUuid());
+
 		response.sendRedirect(RL_REDIR);
 
 		notifySession(state.getUuid(), userInfo.getEmail());
@@ -261,6 +264,8 @@ public class AccountService
 				.addParameter("uuid", session.getUuid().toString())
 				.executeUpdate();
 		}
+
+		auth.invalidate(session.getUuid());
 	}
 
 	@RequestMapping("/session-check")
@@ -24,25 +24,57 @@
  */
 package net.runelite.http.service.account;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.IOException;
 import net.runelite.http.service.account.beans.SessionEntry;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import net.runelite.http.api.RuneLiteAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
 public class AuthFilter
 {
+	private static final Logger logger = LoggerFactory.getLogger(AuthFilter.class);
+
 	private final Sql2o sql2o;
 
+	// empty for tokens with no session, so that a client retrying with a bad token doesn't hit the database
+	private final Cache<UUID, Optional<SessionEntry>> sessions = CacheBuilder.newBuilder()
+		.expireAfterWrite(10, TimeUnit.MINUTES)
+		.maximumSize(65536L)
+		.build();
+
+	// bumped by every invalidate, so a load which raced with one can be discarded.
+	// Guava keeps the result of a load even if the key is invalidated while it runs
+	private final AtomicLong invalidations = new AtomicLong();
+
+	// last_used times not yet written to the database
+	private final Map<UUID, Instant> lastUsed = new ConcurrentHashMap<>();
+
 	@Autowired
 	public AuthFilter(@Qualifier("Runelite SQL2O") Sql2o sql2o)
 	{
@@ -60,29 +92,104 @@ public class AuthFilter
 
 		UUID uuid = UUID.fromString(runeliteAuth);
 
+		long generation = invalidations.get();
+		Optional<SessionEntry> session;
+		try
+		{
+			session = sessions.get(uuid, () -> load(uuid));
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new IOException(ex.getCause());
+		}
+
+		if (invalidations.get() != generation)
+		{
+			// the session may have been created or deleted after it was loaded
+			sessions.asMap().remove(uuid, session);
+		}
+
+		if (!session.isPresent())
+		{
+			response.sendError(401, "Access denied");
+			return null;
+		}
+
+		SessionEntry sessionEntry = session.get();
+		Instant now = Instant.now();
+		lastUsed.put(uuid, now);
+		sessionEntry.setLastUsed(now);
+
+		return sessionEntry;
+	}
+
+	private Optional<SessionEntry> load(UUID uuid)
+	{
 		try (Connection con = sql2o.open())
 		{
 			SessionEntry sessionEntry = con.createQuery("select user, uuid, created from sessions where uuid = :uuid")
 				.addParameter("uuid", uuid.toString())
 				.executeAndFetchFirst(SessionEntry.class);
+			return Optional.ofNullable(sessionEntry);
+		}
+	}
 
-			if (sessionEntry == null)
-			{
-				response.sendError(401, "Access denied");
-				return null;
-			}
+	/**
+	 * Drop any cached state for a session, to be called when the session
+	 * is created or deleted.
+	 *
+	 * @param uuid session uuid
+	 */
+	public void invalidate(UUID uuid)
+	{
+		// bump first, so a load which this misses always sees the change
+		invalidations.incrementAndGet();
+		sessions.invalidate(uuid);
+		lastUsed.remove(uuid);
+	}
 
-			Instant now = Instant.now();
+	@Scheduled(fixedDelay = 30_000)
+	@PreDestroy
+	public synchronized void flushLastUsed()
+	{
+		if (lastUsed.isEmpty())
+		{
+			return;
+		}
 
-			con.createQuery("update sessions set last_used = :last_used where uuid = :uuid")
-				.addParameter("last_used", Timestamp.from(now))
-				.addParameter("uuid", uuid.toString())
-				.executeUpdate();
+		Map<UUID, Instant> pending = new HashMap<>();
+		for (Iterator<Map.Entry<UUID, Instant>> it = lastUsed.entrySet().iterator(); it.hasNext(); )
+		{
+			Map.Entry<UUID, Instant> entry = it.next();
+			pending.put(entry.getKey(), entry.getValue());
+			// leave the entry if it was updated again after being copied
+			lastUsed.remove(entry.getKey(), entry.getValue());
+		}
 
-			sessionEntry.setLastUsed(now);
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("update sessions set last_used = :last_used where uuid = :uuid");
 
-			return sessionEntry;
+			for (Map.Entry<UUID, Instant> entry : pending.entrySet())
+			{
+				query
+					.addParameter("last_used", Timestamp.from(entry.getValue()))
+					.addParameter("uuid", entry.getKey().toString())
+					.addToBatch();
+			}
+
+			query.executeBatch();
+			con.commit();
 		}
-	}
+		catch (RuntimeException ex)
+		{
+			logger.warn("Unable to update last used time of {} sessions", pending.size(), ex);
 
+			for (Map.Entry<UUID, Instant> entry : pending.entrySet())
+			{
+				lastUsed.merge(entry.getKey(), entry.getValue(), (a, b) -> a.isAfter(b) ? a : b);
+			}
+		}
+	}
 }
@@ -24,6 +24,10 @@
  */
 package net.runelite.http.service.cache;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
@@ -42,11 +46,13 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.fs.ArchiveCache;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.FSFile;
@@ -68,6 +74,9 @@ import org.xmlpull.v1.XmlPullParserException;
 @Slf4j
 public class CacheService
 {
+	private static final long ARCHIVE_CACHE_SIZE = 64L * 1024L * 1024L;
+	private static final long ARCHIVE_FILES_CACHE_SIZE = 128L * 1024L * 1024L;
+
 	@Autowired
 	@Qualifier("Runelite Cache SQL2O")
 	private Sql2o sql2o;
@@ -76,6 +85,26 @@ public class CacheService
 	private String minioBucket;
 
 	private final MinioClient minioClient;
+	private final ArchiveCache archiveCache = new ArchiveCache(ARCHIVE_CACHE_SIZE);
+
+	/**
+	 * decompressed and split archives, keyed by archive id. Archives are
+	 * immutable once uploaded so entries never go stale.
+	 */
+	private final Cache<Integer, ArchiveFiles> archiveFilesCache = CacheBuilder.newBuilder()
+		.maximumWeight(ARCHIVE_FILES_CACHE_SIZE)
+		.weigher((Integer id, ArchiveFiles files) -> archiveFilesSize(files))
+		.build();
+
+	/**
+	 * resolved cache -> index -> archive lookups. Keys include the cache id,
+	 * so a newer cache is never served entries of an older one.
+	 */
+	private final Cache<ArchiveKey, ArchiveEntry> archiveEntryCache = CacheBuilder.newBuilder()
+		.maximumSize(8192L)
+		.build();
+
+	private final Supplier<CacheEntry> mostRecent = Suppliers.memoizeWithExpiration(this::findMostRecent, 30, TimeUnit.SECONDS);
 
 	@Autowired
 	public CacheService(
@@ -94,12 +123,26 @@ public class CacheService
 	}
 
 	/**
-	 * retrieve archive from storage
+	 * retrieve archive from storage. The returned array is shared and
+	 * must not be modified.
 	 *
 	 * @param archiveEntry
 	 * @return
 	 */
 	public byte[] getArchive(ArchiveEntry archiveEntry)
+	{
+		try
+		{
+			return archiveCache.get(archiveEntry.getHash(), () -> loadArchive(archiveEntry));
+		}
+		catch (IOException ex)
+		{
+			log.warn(null, ex);
+			return null;
+		}
+	}
+
+	private byte[] loadArchive(ArchiveEntry archiveEntry) throws IOException
 	{
 		String hashStr = BaseEncoding.base16().encode(archiveEntry.getHash());
 		String path = new StringBuilder()
@@ -113,7 +156,7 @@ public class CacheService
 			return ByteStreams.toByteArray(in);
 		}
 		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
-			| IOException | InvalidKeyException | NoResponseException | XmlPullParserException
+			| InvalidKeyException | NoResponseException | XmlPullParserException
 			| ErrorResponseException | InternalException | InvalidArgumentException ex)
 		{
 			log.warn(null, ex);
@@ -121,7 +164,40 @@ public class CacheService
 		}
 	}
 
+	/**
+	 * retrieve the decompressed files of an archive. The returned archive
+	 * is shared and must not be modified.
+	 *
+	 * @param archiveEntry
+	 * @return
+	 * @throws IOException
+	 */
 	public ArchiveFiles getArchiveFiles(ArchiveEntry archiveEntry) throws IOException
+	{
+		ArchiveFiles archiveFiles = archiveFilesCache.getIfPresent(archiveEntry.getId());
+		if (archiveFiles == null)
+		{
+			archiveFiles = loadArchiveFiles(archiveEntry);
+			if (archiveFiles != null)
+			{
+				archiveFilesCache.put(archiveEntry.getId(), archiveFiles);
+			}
+		}
+		return archiveFiles;
+	}
+
+	private static int archiveFilesSize(ArchiveFiles archiveFiles)
+	{
+		int size = 0;
+		for (FSFile file : archiveFiles.getFiles())
+		{
+			byte[] contents = file.getContents();
+			size += contents != null ? contents.length : 0;
+		}
+		return size;
+	}
+
+	private ArchiveFiles loadArchiveFiles(ArchiveEntry archiveEntry) throws IOException
 	{
 		CacheDAO cacheDao = new CacheDAO();
 
@@ -182,6 +258,16 @@ public class CacheService
 		}
 	}
 
+	/**
+	 * find the most recent cache, which may be up to 30 seconds out of date
+	 *
+	 * @return
+	 */
+	public CacheEntry findMostRecentCached()
+	{
+		return mostRecent.get();
+	}
+
 	public List<IndexEntry> findIndexesForCache(CacheEntry cacheEntry)
 	{
 		try (Connection con = sql2o.open())
@@ -221,6 +307,42 @@ public class CacheService
 		}
 	}
 
+	/**
+	 * find an archive of a cache, caching the result
+	 *
+	 * @param cache
+	 * @param indexId
+	 * @param archiveId
+	 * @return the archive, or null if the index or archive doesn't exist
+	 */
+	public ArchiveEntry findArchive(CacheEntry cache, int indexId, int archiveId)
+	{
+		ArchiveKey key = new ArchiveKey(cache.getId(), indexId, archiveId);
+		ArchiveEntry archiveEntry = archiveEntryCache.getIfPresent(key);
+		if (archiveEntry != null)
+		{
+			return archiveEntry;
+		}
+
+		try (Connection con = sql2o.open())
+		{
+			CacheDAO cacheDao = new CacheDAO();
+			IndexEntry indexEntry = cacheDao.findIndexForCache(con, cache, indexId);
+			if (indexEntry == null)
+			{
+				return null;
+			}
+
+			archiveEntry = cacheDao.findArchiveForIndex(con, indexEntry, archiveId);
+		}
+
+		if (archiveEntry != null)
+		{
+			archiveEntryCache.put(key, archiveEntry);
+		}
+		return archiveEntry;
+	}
+
 	public ArchiveEntry findArchiveForTypeAndName(CacheEntry cache, IndexType index, int nameHash)
 	{
 		try (Connection con = sql2o.open())
@@ -232,9 +354,8 @@ public class CacheService
 
 	public List<ItemDefinition> getItems() throws IOException
 	{
-		CacheEntry cache = findMostRecent();
-		IndexEntry indexEntry = findIndexForCache(cache, IndexType.CONFIGS.getNumber());
-		ArchiveEntry archiveEntry = findArchiveForIndex(indexEntry, ConfigType.ITEM.getId());
+		CacheEntry cache = findMostRecentCached();
+		ArchiveEntry archiveEntry = findArchive(cache, IndexType.CONFIGS.getNumber(), ConfigType.ITEM.getId());
 		ArchiveFiles archiveFiles = getArchiveFiles(archiveEntry);
 		final ItemLoader itemLoader = new ItemLoader();
 		final List<ItemDefinition> result = new ArrayList<>(archiveFiles.getFiles().size());
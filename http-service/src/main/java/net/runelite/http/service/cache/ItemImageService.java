@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.InsufficientDataException;
+import io.minio.errors.InternalException;
+import io.minio.errors.InvalidArgumentException;
+import io.minio.errors.InvalidBucketNameException;
+import io.minio.errors.NoResponseException;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.IndexType;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.ModelDefinition;
+import net.runelite.cache.definitions.SpriteDefinition;
+import net.runelite.cache.definitions.TextureDefinition;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import net.runelite.cache.definitions.loaders.ModelLoader;
+import net.runelite.cache.definitions.loaders.SpriteLoader;
+import net.runelite.cache.definitions.loaders.TextureLoader;
+import net.runelite.cache.definitions.providers.ItemProvider;
+import net.runelite.cache.definitions.providers.ModelProvider;
+import net.runelite.cache.definitions.providers.SpriteProvider;
+import net.runelite.cache.definitions.providers.TextureProvider;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.item.ItemSpriteFactory;
+import net.runelite.http.service.cache.beans.ArchiveEntry;
+import net.runelite.http.service.cache.beans.CacheEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Renders item images from the cache. Images for the most recent cache
+ * with the default parameters are rendered ahead of time into object
+ * storage, so requests for them don't need to render.
+ */
+@Service
+@Slf4j
+public class ItemImageService
+{
+	static final int DEFAULT_QUANTITY = 1;
+	static final int DEFAULT_BORDER = 1;
+	static final int DEFAULT_SHADOW_COLOR = 3153952;
+
+	private static final long IMAGE_CACHE_SIZE = 32L * 1024L * 1024L;
+	private static final int MAX_RENDERERS = 2;
+	private static final String IMAGE_PATH = "item-image/";
+	private static final String COMPLETE_MARKER = "complete";
+
+	@Autowired
+	private CacheService cacheService;
+
+	@Autowired
+	private MinioClient minioClient;
+
+	@Value("${minio.bucket}")
+	private String minioBucket;
+
+	private final Cache<ItemImageKey, ItemImage> images = CacheBuilder.newBuilder()
+		.maximumWeight(IMAGE_CACHE_SIZE)
+		.weigher((ItemImageKey key, ItemImage image) -> image.getData().length)
+		.build();
+
+	// providers are reused so the texture state built by ItemSpriteFactory is kept
+	// between renders. Requests may be for an older cache than the one being
+	// prerendered, so keep a renderer for each.
+	private final Cache<Integer, Renderer> renderers = CacheBuilder.newBuilder()
+		.maximumSize(MAX_RENDERERS)
+		.build();
+
+	// prerendering takes minutes, so it runs off the shared scheduler thread
+	private final ExecutorService prerenderExecutor = Executors.newSingleThreadExecutor();
+	private final AtomicBoolean prerendering = new AtomicBoolean();
+	private int prerenderedCacheId = -1; // only accessed by the prerender executor
+
+	/**
+	 * Get the image of an item
+	 *
+	 * @param cache cache to render the item from
+	 * @param itemId
+	 * @param quantity
+	 * @param border
+	 * @param shadowColor
+	 * @return the image, or null if the item can't be rendered
+	 * @throws IOException
+	 */
+	public ItemImage getItemImage(CacheEntry cache, int itemId, int quantity, int border, int shadowColor) throws IOException
+	{
+		ItemImageKey key = new ItemImageKey(cache.getId(), itemId, quantity, border, shadowColor);
+		ItemImage image = images.getIfPresent(key);
+		if (image != null)
+		{
+			return image;
+		}
+
+		byte[] data = null;
+		if (isDefault(quantity, border, shadowColor))
+		{
+			data = getObject(imagePath(cache, itemId));
+		}
+
+		if (data == null)
+		{
+			data = render(cache, itemId, quantity, border, shadowColor);
+			if (data == null)
+			{
+				return null;
+			}
+		}
+
+		image = new ItemImage(data, etag(data));
+		images.put(key, image);
+		return image;
+	}
+
+	@Scheduled(initialDelay = 60_000, fixedDelay = 10 * 60_000)
+	public void schedPrerender()
+	{
+		if (!prerendering.compareAndSet(false, true))
+		{
+			return; // still running
+		}
+
+		prerenderExecutor.execute(() ->
+		{
+			try
+			{
+				prerenderMostRecent();
+			}
+			finally
+			{
+				prerendering.set(false);
+			}
+		});
+	}
+
+	@PreDestroy
+	public void shutdown()
+	{
+		prerenderExecutor.shutdownNow();
+	}
+
+	private void prerenderMostRecent()
+	{
+		CacheEntry cache = cacheService.findMostRecent();
+		if (cache == null || cache.getId() == prerenderedCacheId)
+		{
+			return;
+		}
+
+		try
+		{
+			prerender(cache);
+			prerenderedCacheId = cache.getId();
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to prerender item images for cache {}", cache.getId(), ex);
+		}
+	}
+
+	/**
+	 * Render the images of every item in a cache with the default
+	 * parameters and store them, unless this has already been done.
+	 *
+	 * @param cache
+	 * @throws IOException
+	 */
+	public void prerender(CacheEntry cache) throws IOException
+	{
+		String marker = IMAGE_PATH + cache.getId() + "/" + COMPLETE_MARKER;
+		if (getObject(marker) != null)
+		{
+			return;
+		}
+
+		ArchiveEntry archiveEntry = cacheService.findArchive(cache, IndexType.CONFIGS.getNumber(), ConfigType.ITEM.getId());
+		ArchiveFiles archiveFiles = archiveEntry != null ? cacheService.getArchiveFiles(archiveEntry) : null;
+		if (archiveFiles == null)
+		{
+			throw new IOException("unable to load item archive");
+		}
+
+		List<Integer> itemIds = archiveFiles.getFiles().stream()
+			.map(FSFile::getFileId)
+			.collect(Collectors.toList());
+
+		log.info("Prerendering {} item images for cache {}", itemIds.size(), cache.getId());
+		long start = System.currentTimeMillis();
+
+		AtomicInteger count = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try
+		{
+			pool.submit(() -> itemIds.parallelStream().forEach(itemId ->
+			{
+				byte[] data;
+				try
+				{
+					data = render(cache, itemId, DEFAULT_QUANTITY, DEFAULT_BORDER, DEFAULT_SHADOW_COLOR);
+				}
+				catch (IOException | RuntimeException ex)
+				{
+					log.debug("unable to render item {}", itemId, ex);
+					return;
+				}
+
+				if (data != null && putObject(imagePath(cache, itemId), data, "image/png"))
+				{
+					count.incrementAndGet();
+				}
+			})).get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted prerendering item images", ex);
+		}
+		catch (ExecutionException ex)
+		{
+			throw new IOException(ex.getCause());
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		if (!putObject(marker, new byte[0], "binary/octet-stream"))
+		{
+			throw new IOException("unable to store prerender marker");
+		}
+
+		log.info("Prerendered {} item images for cache {} in {}ms", count.get(), cache.getId(),
+			System.currentTimeMillis() - start);
+	}
+
+	private static boolean isDefault(int quantity, int border, int shadowColor)
+	{
+		return quantity == DEFAULT_QUANTITY && border == DEFAULT_BORDER && shadowColor == DEFAULT_SHADOW_COLOR;
+	}
+
+	private static String imagePath(CacheEntry cache, int itemId)
+	{
+		return IMAGE_PATH + cache.getId() + "/" + itemId + ".png";
+	}
+
+	private static String etag(byte[] data)
+	{
+		return "\"" + Hashing.sha256().hashBytes(data).toString() + "\"";
+	}
+
+	private byte[] render(CacheEntry cache, int itemId, int quantity, int border, int shadowColor) throws IOException
+	{
+		Renderer r = getRenderer(cache);
+		if (r.itemProvider.provide(itemId) == null)
+		{
+			return null;
+		}
+
+		BufferedImage itemImage = ItemSpriteFactory.createSprite(r.itemProvider, r.modelProvider, r.spriteProvider, r.textureProvider,
+			itemId, quantity, border, shadowColor, false);
+		if (itemImage == null)
+		{
+			return null;
+		}
+
+		ByteArrayOutputStream bao = new ByteArrayOutputStream();
+		ImageIO.write(itemImage, "png", bao);
+		return bao.toByteArray();
+	}
+
+	private Renderer getRenderer(CacheEntry cache)
+	{
+		return renderers.asMap().computeIfAbsent(cache.getId(), id -> new Renderer(cache));
+	}
+
+	private byte[] getObject(String path)
+	{
+		try (InputStream in = minioClient.getObject(minioBucket, path))
+		{
+			return ByteStreams.toByteArray(in);
+		}
+		catch (ErrorResponseException ex)
+		{
+			// does not exist
+			return null;
+		}
+		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
+			| InvalidKeyException | NoResponseException | XmlPullParserException
+			| InternalException | InvalidArgumentException | IOException ex)
+		{
+			log.warn(null, ex);
+			return null;
+		}
+	}
+
+	private boolean putObject(String path, byte[] data, String contentType)
+	{
+		try
+		{
+			minioClient.putObject(minioBucket, path, new ByteArrayInputStream(data), data.length, contentType);
+			return true;
+		}
+		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
+			| InvalidKeyException | NoResponseException | XmlPullParserException | ErrorResponseException
+			| InternalException | InvalidArgumentException | IOException ex)
+		{
+			log.warn("unable to store {}", path, ex);
+			return false;
+		}
+	}
+
+	private class Renderer
+	{
+		private final ItemProvider itemProvider;
+		private final ModelProvider modelProvider;
+		private final SpriteProvider spriteProvider;
+		private final TextureProvider textureProvider;
+
+		Renderer(CacheEntry cache)
+		{
+			itemProvider = new ItemProvider()
+			{
+				@Override
+				public ItemDefinition provide(int itemId)
+				{
+					try
+					{
+						ArchiveEntry archiveEntry = cacheService.findArchive(cache, IndexType.CONFIGS.getNumber(), ConfigType.ITEM.getId());
+						ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
+						FSFile file = archiveFiles.findFile(itemId);
+						return file != null ? new ItemLoader().load(itemId, file.getContents()) : null;
+					}
+					catch (Exception ex)
+					{
+						log.warn(null, ex);
+						return null;
+					}
+				}
+			};
+			modelProvider = new ModelProvider()
+			{
+				@Override
+				public ModelDefinition provide(int modelId) throws IOException
+				{
+					// models are modified when lit, so they are decoded for each render
+					ArchiveEntry archiveEntry = cacheService.findArchive(cache, IndexType.MODELS.getNumber(), modelId);
+					byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
+					return new ModelLoader().load(modelId, archiveData);
+				}
+			};
+			spriteProvider = new SpriteProvider()
+			{
+				@Override
+				public SpriteDefinition provide(int spriteId, int frameId)
+				{
+					try
+					{
+						ArchiveEntry archiveEntry = cacheService.findArchive(cache, IndexType.SPRITES.getNumber(), spriteId);
+						byte[] archiveData = Container.decompress(cacheService.getArchive(archiveEntry), null).data;
+						SpriteDefinition[] defs = new SpriteLoader().load(spriteId, archiveData);
+						return defs[frameId];
+					}
+					catch (Exception ex)
+					{
+						log.warn(null, ex);
+						return null;
+					}
+				}
+			};
+			textureProvider = new TextureProvider()
+			{
+				@Override
+				public TextureDefinition[] provide()
+				{
+					try
+					{
+						ArchiveEntry archiveEntry = cacheService.findArchive(cache, IndexType.TEXTURES.getNumber(), 0);
+						ArchiveFiles archiveFiles = cacheService.getArchiveFiles(archiveEntry);
+						TextureLoader loader = new TextureLoader();
+						TextureDefinition[] defs = new TextureDefinition[archiveFiles.getFiles().size()];
+						int i = 0;
+						for (FSFile file : archiveFiles.getFiles())
+						{
+							TextureDefinition def = loader.load(file.getFileId(), file.getContents());
+							defs[i++] = def;
+						}
+						return defs;
+					}
+					catch (Exception ex)
+					{
+						log.warn(null, ex);
+						return null;
+					}
+				}
+			};
+		}
+	}
+}
@@ -75,7 +75,7 @@ public class ItemController
 				itemPrice.setTime(priceEntry.getTime());
 				return itemPrice;
 			})
-			.toArray(ItemPrice[]::new), 30, TimeUnit.MINUTES);
+			.toArray(ItemPrice[]::new), 1, TimeUnit.MINUTES);
 	}
 
 	@RequestMapping("/{itemId}")
@@ -137,6 +137,24 @@ public class ItemController
 			time = now;
 		}
 
+		if (time == null)
+		{
+			// the latest price table only holds prices of known items
+			PriceEntry priceEntry = itemService.getPrice(itemId, null);
+			if (priceEntry != null)
+			{
+				ItemPrice itemPrice = new ItemPrice();
+				itemPrice.setId(priceEntry.getItem());
+				itemPrice.setName(priceEntry.getName());
+				itemPrice.setPrice(priceEntry.getPrice());
+				itemPrice.setTime(priceEntry.getTime());
+
+				return ResponseEntity.ok()
+					.cacheControl(CacheControl.maxAge(30, TimeUnit.MINUTES).cachePublic())
+					.body(itemPrice);
+			}
+		}
+
 		ItemEntry item = itemService.getItem(itemId);
 		if (item == null)
 		{
@@ -73,13 +73,16 @@ public class ItemService
 		+ "  FULLTEXT idx_name (name)\n"
 		+ ") ENGINE=InnoDB";
 
+	// tables created before the fetched_time key need:
+	// ALTER TABLE `prices` ADD KEY `fetched_time` (`fetched_time`)
 	private static final String CREATE_PRICES = "CREATE TABLE IF NOT EXISTS `prices` (\n"
 		+ "  `item` int(11) NOT NULL,\n"
 		+ "  `price` int(11) NOT NULL,\n"
 		+ "  `time` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00',\n"
 		+ "  `fetched_time` timestamp NOT NULL DEFAULT '0000-00-00 00:00:00',\n"
 		+ "  UNIQUE KEY `item_time` (`item`,`time`),\n"
-		+ "  KEY `item_fetched_time` (`item`,`fetched_time`)\n"
+		+ "  KEY `item_fetched_time` (`item`,`fetched_time`),\n"
+		+ "  KEY `fetched_time` (`fetched_time`)\n"
 		+ ") ENGINE=InnoDB";
 
 	private static final int MAX_PENDING = 512;
@@ -87,6 +90,9 @@ public class ItemService
 	private final Sql2o sql2o;
 	private final CacheService cacheService;
 
+	private final PriceTable latestPrices = new PriceTable();
+	private Instant lastFetchedTime = Instant.EPOCH; // latest fetched_time seen by the price table
+
 	private final ConcurrentLinkedQueue<PendingLookup> pendingLookups = new ConcurrentLinkedQueue<PendingLookup>();
 	private int[] tradeableItems;
 	private final Random random = new Random();
@@ -105,7 +111,16 @@ public class ItemService
 
 			con.createQuery(CREATE_PRICES)
 				.executeUpdate();
+
+			List<PriceEntry> prices = con.createQuery("select t2.item, t3.name, t2.time, prices.price, prices.fetched_time from (select t1.item as item, max(t1.time) as time from prices t1 group by item) t2 " +
+					" join prices on t2.item=prices.item and t2.time=prices.time" +
+					" join items t3 on t2.item=t3.id")
+				.executeAndFetch(PriceEntry.class);
+			latestPrices.updateAll(prices);
+			lastFetchedTime = maxFetchedTime(prices, lastFetchedTime);
 		}
+
+		log.info("Loaded {} latest prices", latestPrices.size());
 	}
 
 	public ItemEntry getItem(int itemId)
@@ -137,8 +152,21 @@ public class ItemService
 		}
 	}
 
+	/**
+	 * Get the price of an item. The latest price is served from memory,
+	 * prices at a given time are looked up in the database.
+	 *
+	 * @param itemId
+	 * @param time time to get the price at, or null for the latest price
+	 * @return
+	 */
 	public PriceEntry getPrice(int itemId, Instant time)
 	{
+		if (time == null)
+		{
+			return latestPrices.get(itemId);
+		}
+
 		try (Connection con = sql2o.open())
 		{
 			return getPrice(con, itemId, time);
@@ -147,33 +175,61 @@ public class ItemService
 
 	public List<PriceEntry> getPrices(int... itemIds)
 	{
-		try (Connection con = sql2o.open())
+		Set<Integer> seen = new HashSet<>();
+		List<PriceEntry> priceEntries = new ArrayList<>(itemIds.length);
+
+		for (int itemId : itemIds)
 		{
-			Set<Integer> seen = new HashSet<>();
-			List<PriceEntry> priceEntries = new ArrayList<>(itemIds.length);
+			if (seen.contains(itemId))
+			{
+				continue;
+			}
+			seen.add(itemId);
 
-			for (int itemId : itemIds)
+			PriceEntry priceEntry = latestPrices.get(itemId);
+
+			if (priceEntry == null)
 			{
-				if (seen.contains(itemId))
-				{
-					continue;
-				}
-				seen.add(itemId);
+				continue;
+			}
 
-				PriceEntry priceEntry = getPrice(con, itemId, null);
+			priceEntries.add(priceEntry);
+		}
 
-				if (priceEntry == null)
-				{
-					continue;
-				}
+		return priceEntries;
+	}
 
-				priceEntries.add(priceEntry);
-			}
+	/**
+	 * Load the latest price of an item which is not in the price table,
+	 * for when its item entry has just been created.
+	 */
+	private void loadLatestPrice(Connection con, int itemId)
+	{
+		if (latestPrices.get(itemId) != null)
+		{
+			return;
+		}
 
-			return priceEntries;
+		PriceEntry priceEntry = getPrice(con, itemId, null);
+		if (priceEntry != null)
+		{
+			latestPrices.update(priceEntry);
 		}
 	}
 
+	private static Instant maxFetchedTime(List<PriceEntry> prices, Instant max)
+	{
+		for (PriceEntry priceEntry : prices)
+		{
+			Instant fetchedTime = priceEntry.getFetched_time();
+			if (fetchedTime != null && fetchedTime.isAfter(max))
+			{
+				max = fetchedTime;
+			}
+		}
+		return max;
+	}
+
 	public List<ItemEntry> search(String search)
 	{
 		try (Connection con = sql2o.open())
@@ -223,6 +279,8 @@ public class ItemService
 					.addParameter("icon", icon)
 					.addParameter("icon_large", iconLarge)
 					.executeUpdate();
+
+				loadLatestPrice(con, itemId);
 			}
 
 			ItemEntry item = new ItemEntry();
@@ -287,19 +345,60 @@ public class ItemService
 			query.executeBatch();
 			con.commit(false);
 
+			updateLatestPrice(itemId, entries);
+
 			return entries;
 		}
 	}
 
-	public List<PriceEntry> fetchPrices()
+	private void updateLatestPrice(int itemId, List<PriceEntry> entries)
 	{
-		try (Connection con = sql2o.beginTransaction())
+		PriceEntry latest = null;
+		for (PriceEntry priceEntry : entries)
 		{
-			Query query = con.createQuery("select t2.item, t3.name, t2.time, prices.price, prices.fetched_time from (select t1.item as item, max(t1.time) as time from prices t1 group by item) t2 " +
-					" join prices on t2.item=prices.item and t2.time=prices.time" +
-					" join items t3 on t2.item=t3.id");
-			return query.executeAndFetch(PriceEntry.class);
+			if (latest == null || priceEntry.getTime().isAfter(latest.getTime()))
+			{
+				latest = priceEntry;
+			}
+		}
+
+		if (latest == null)
+		{
+			return;
+		}
+
+		// prices are only listed for known items, as the item name is required
+		String name;
+		PriceEntry existing = latestPrices.get(itemId);
+		if (existing != null)
+		{
+			name = existing.getName();
+		}
+		else
+		{
+			ItemEntry item = getItem(itemId);
+			if (item == null)
+			{
+				return;
+			}
+			name = item.getName();
 		}
+
+		PriceEntry priceEntry = new PriceEntry();
+		priceEntry.setItem(itemId);
+		priceEntry.setName(name);
+		priceEntry.setPrice(latest.getPrice());
+		priceEntry.setTime(latest.getTime());
+		priceEntry.setFetched_time(latest.getFetched_time());
+		latestPrices.update(priceEntry);
+	}
+
+	/**
+	 * @return the latest price of every item
+	 */
+	public List<PriceEntry> fetchPrices()
+	{
+		return latestPrices.getAll();
 	}
 
 	private RSItem fetchRSItem(int itemId) throws IOException
@@ -367,6 +466,12 @@ public class ItemService
 			}
 
 			q.executeBatch();
+
+			for (RSItem rsItem : search.getItems())
+			{
+				loadLatestPrice(con, rsItem.getId());
+			}
+
 			con.commit(false);
 		}
 	}
@@ -477,6 +582,30 @@ public class ItemService
 		fetchPrice(id);
 	}
 
+	/**
+	 * Update the price table with prices fetched since it was last synced,
+	 * including those written by other instances.
+	 */
+	@Scheduled(fixedDelay = 60_000)
+	public void syncPrices()
+	{
+		List<PriceEntry> prices;
+		try (Connection con = sql2o.open())
+		{
+			// rows fetched in the same second as the last sync may not have been seen yet.
+			// Only the newest of the fetched rows for each item can change the table
+			prices = con.createQuery("select t1.item, t3.name, t1.price, t1.time, t1.fetched_time from prices t1 "
+				+ "join (select item, max(time) as time from prices where fetched_time >= :last group by item) t2 on t1.item=t2.item and t1.time=t2.time "
+				+ "join items t3 on t1.item=t3.id")
+				.addParameter("last", lastFetchedTime)
+				.executeAndFetch(PriceEntry.class);
+		}
+
+		latestPrices.updateAll(prices);
+		lastFetchedTime = maxFetchedTime(prices, lastFetchedTime);
+		log.debug("Synced {} prices", prices.size());
+	}
+
 	@Scheduled(fixedDelay = 1_8000_000) // 30 minutes
 	public void reloadItems() throws IOException
 	{
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The latest known price of each item, indexed by item id. Reads are lock
+ * free; updates replace whole entries and are serialized.
+ */
+class PriceTable
+{
+	private volatile AtomicReferenceArray<PriceEntry> prices = new AtomicReferenceArray<>(0);
+	private volatile int size;
+
+	PriceEntry get(int itemId)
+	{
+		AtomicReferenceArray<PriceEntry> p = prices;
+		return itemId >= 0 && itemId < p.length() ? p.get(itemId) : null;
+	}
+
+	/**
+	 * Store a price, unless an entry with a later time is already stored
+	 *
+	 * @param priceEntry
+	 * @return true if the price was stored
+	 */
+	synchronized boolean update(PriceEntry priceEntry)
+	{
+		int itemId = priceEntry.getItem();
+		if (itemId < 0)
+		{
+			return false;
+		}
+
+		AtomicReferenceArray<PriceEntry> p = prices;
+		PriceEntry existing = itemId < p.length() ? p.get(itemId) : null;
+		if (existing != null && existing.getTime().isAfter(priceEntry.getTime()))
+		{
+			return false;
+		}
+
+		if (itemId >= p.length())
+		{
+			// copy, then publish the grown array with the new entry already in it
+			AtomicReferenceArray<PriceEntry> grown = new AtomicReferenceArray<>(Math.max(itemId + 1, p.length() * 2));
+			for (int i = 0; i < p.length(); ++i)
+			{
+				grown.lazySet(i, p.get(i));
+			}
+			grown.lazySet(itemId, priceEntry);
+			prices = grown;
+		}
+		else
+		{
+			p.set(itemId, priceEntry);
+		}
+
+		if (existing == null)
+		{
+			++size;
+		}
+		return true;
+	}
+
+	synchronized void updateAll(Collection<PriceEntry> priceEntries)
+	{
+		for (PriceEntry priceEntry : priceEntries)
+		{
+			update(priceEntry);
+		}
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return the stored prices, ordered by item id
+	 */
+	List<PriceEntry> getAll()
+	{
+		AtomicReferenceArray<PriceEntry> p = prices;
+		List<PriceEntry> all = new ArrayList<>(size);
+		for (int i = 0; i < p.length(); ++i)
+		{
+			PriceEntry priceEntry = p.get(i);
+			if (priceEntry != null)
+			{
+				all.add(priceEntry);
+			}
+		}
+		return Collections.unmodifiableList(all);
+	}
+}
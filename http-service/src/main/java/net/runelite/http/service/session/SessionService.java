@@ -24,95 +24,285 @@
  */
 package net.runelite.http.service.session;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
+/**
+ * Keeps active sessions in memory and writes changes to the session
+ * table in periodic batches, rather than once per ping.
+ */
 @Service
+@Slf4j
 public class SessionService
 {
+	private static final Duration SESSION_TIMEOUT = Duration.ofMinutes(5);
+	private static final long TICK_SECONDS = 60;
+	// one slot per tick; a slot is swept once every session in it could have timed out
+	private static final int WHEEL_SIZE = (int) (SESSION_TIMEOUT.getSeconds() / TICK_SECONDS) + 2;
+
 	private final Sql2o sql2o;
 
+	private final Map<UUID, SessionEntry> sessions = new ConcurrentHashMap<>();
+	private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+	private final Set<UUID> deleted = ConcurrentHashMap.newKeySet();
+
+	private final Set<UUID>[] wheel;
+	private long lastTick;
+
 	@Autowired
 	public SessionService(
 		@Qualifier("Runelite SQL2O") Sql2o sql2o
 	)
 	{
-		this.sql2o = sql2o;
+		this(sql2o, Instant.now());
 	}
 
-	public void createSession(SessionEntry session)
+	@SuppressWarnings("unchecked")
+	SessionService(Sql2o sql2o, Instant now)
 	{
+		this.sql2o = sql2o;
+
+		wheel = new Set[WHEEL_SIZE];
+		for (int i = 0; i < WHEEL_SIZE; ++i)
+		{
+			wheel[i] = ConcurrentHashMap.newKeySet();
+		}
+		lastTick = tick(now) - 1;
+
 		try (Connection con = sql2o.open())
 		{
-			con.createQuery("insert into session (uuid, ip, start, last) "
-				+ "values (:uuid, :ip, :start, :last)")
-				.addParameter("uuid", session.getUuid().toString())
-				.addParameter("ip", session.getIp())
-				.addParameter("start", session.getStart())
-				.addParameter("last", session.getLast())
+			con.createQuery("delete from session where last + interval 5 minute < current_timestamp()")
 				.executeUpdate();
+
+			List<SessionEntry> entries = con.createQuery("select uuid, ip, start, last from session")
+				.executeAndFetch(SessionEntry.class);
+			for (SessionEntry entry : entries)
+			{
+				sessions.put(entry.getUuid(), entry);
+				schedule(entry.getUuid(), entry.getLast());
+			}
 		}
+
+		log.info("Loaded {} sessions", sessions.size());
+	}
+
+	private static long tick(Instant time)
+	{
+		return time.getEpochSecond() / TICK_SECONDS;
+	}
+
+	private static int slot(long tick)
+	{
+		return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+	}
+
+	private void schedule(UUID uuid, Instant last)
+	{
+		wheel[slot(tick(last))].add(uuid);
+	}
+
+	public void createSession(SessionEntry session)
+	{
+		UUID uuid = session.getUuid();
+		sessions.put(uuid, session);
+		schedule(uuid, session.getLast());
+		dirty.add(uuid);
 	}
 
 	public SessionEntry findSessionByUUID(UUID id)
 	{
-		try (Connection con = sql2o.open())
-		{
-			return con.createQuery("select uuid, ip, start, last from session where uuid = :uuid")
-				.addParameter("uuid", id.toString())
-				.executeAndFetchFirst(SessionEntry.class);
-		}
+		return sessions.get(id);
 	}
 
 	public void deleteSession(SessionEntry session)
 	{
-		try (Connection con = sql2o.open())
+		UUID uuid = session.getUuid();
+		if (sessions.remove(uuid) != null)
 		{
-			con.createQuery("delete from session where uuid = :uuid")
-				.addParameter("uuid", session.getUuid().toString())
-				.executeUpdate();
+			deleted.add(uuid);
 		}
 	}
 
 	public void updateLast(UUID session)
 	{
-		try (Connection con = sql2o.open())
+		updateLast(session, Instant.now());
+	}
+
+	void updateLast(UUID session, Instant last)
+	{
+		SessionEntry entry = sessions.computeIfPresent(session, (k, s) ->
 		{
-			Instant last = Instant.now();
-			con.createQuery("update session set last = :last where uuid = :uuid")
-				.addParameter("last", last)
-				.addParameter("uuid", session.toString())
-				.executeUpdate();
+			s.setLast(last);
+			return s;
+		});
+
+		if (entry != null)
+		{
+			// the uuid may also sit in an older slot; that slot will skip it when swept
+			schedule(session, last);
+			dirty.add(session);
 		}
 	}
 
-	private void deleteExpired()
+	public int getCount()
 	{
-		try (Connection con = sql2o.open())
+		return sessions.size();
+	}
+
+	@Scheduled(fixedDelay = 60000)
+	public void expire()
+	{
+		expire(Instant.now());
+	}
+
+	synchronized void expire(Instant now)
+	{
+		Instant cutoff = now.minus(SESSION_TIMEOUT);
+		long current = tick(now);
+
+		// a slot has timed out once WHEEL_SIZE - 1 ticks have passed since its own tick.
+		// Also sweep the slots of any ticks missed since the last run, but at most the
+		// whole wheel once
+		long lastExpiredTick = current - (WHEEL_SIZE - 1);
+		long firstExpiredTick = Math.max(lastTick + 1 - (WHEEL_SIZE - 1), lastExpiredTick - (WHEEL_SIZE - 1));
+		lastTick = current;
+
+		int expired = 0;
+		for (long t = firstExpiredTick; t <= lastExpiredTick; ++t)
 		{
-			con.createQuery("delete from session where last + interval 5 minute < current_timestamp()")
-				.executeUpdate();
+			int index = slot(t);
+			for (Iterator<UUID> it = wheel[index].iterator(); it.hasNext(); )
+			{
+				UUID uuid = it.next();
+
+				boolean[] removed = new boolean[1];
+				SessionEntry session = sessions.computeIfPresent(uuid, (k, s) ->
+				{
+					if (s.getLast().isBefore(cutoff))
+					{
+						removed[0] = true;
+						return null;
+					}
+					return s;
+				});
+
+				if (removed[0])
+				{
+					it.remove();
+					deleted.add(uuid);
+					++expired;
+				}
+				else if (session == null || slot(tick(session.getLast())) != index)
+				{
+					// deleted, or pinged since and scheduled into another slot
+					it.remove();
+				}
+				// otherwise the slot has wrapped around to a later tick which this
+				// session belongs to, after a run of missed ticks
+			}
+		}
+
+		if (expired > 0)
+		{
+			log.debug("Expired {} sessions", expired);
 		}
 	}
 
-	public int getCount()
+	@Scheduled(fixedDelay = 10000)
+	@PreDestroy
+	public synchronized void flush()
 	{
-		try (Connection con = sql2o.open())
+		List<UUID> updates = drain(dirty);
+		List<UUID> deletes = drain(deleted);
+
+		if (updates.isEmpty() && deletes.isEmpty())
 		{
-			return con.createQuery("select count(*) from session")
-				.executeScalar(Integer.class);
+			return;
+		}
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			if (!updates.isEmpty())
+			{
+				Query query = con.createQuery("insert into session (uuid, ip, start, last) "
+					+ "values (:uuid, :ip, :start, :last) "
+					+ "on duplicate key update last = values(last)");
+
+				boolean batched = false;
+				for (UUID uuid : updates)
+				{
+					SessionEntry session = sessions.get(uuid);
+					if (session == null)
+					{
+						// deleted or expired since it was modified
+						continue;
+					}
+
+					query
+						.addParameter("uuid", uuid.toString())
+						.addParameter("ip", session.getIp())
+						.addParameter("start", session.getStart())
+						.addParameter("last", session.getLast())
+						.addToBatch();
+					batched = true;
+				}
+
+				if (batched)
+				{
+					query.executeBatch();
+				}
+			}
+
+			if (!deletes.isEmpty())
+			{
+				Query query = con.createQuery("delete from session where uuid = :uuid");
+
+				for (UUID uuid : deletes)
+				{
+					query
+						.addParameter("uuid", uuid.toString())
+						.addToBatch();
+				}
+
+				query.executeBatch();
+			}
+
+			con.commit();
+		}
+		catch (RuntimeException ex)
+		{
+			log.warn("unable to flush {} session updates and {} deletes", updates.size(), deletes.size(), ex);
+
+			// retry on the next flush
+			dirty.addAll(updates);
+			deleted.addAll(deletes);
 		}
 	}
 
-	@Scheduled(fixedDelay = 60000)
-	public void expire()
+	private static List<UUID> drain(Set<UUID> set)
 	{
-		deleteExpired();
+		List<UUID> drained = new ArrayList<>();
+		for (Iterator<UUID> it = set.iterator(); it.hasNext(); )
+		{
+			drained.add(it.next());
+			it.remove();
+		}
+		return drained;
 	}
 }
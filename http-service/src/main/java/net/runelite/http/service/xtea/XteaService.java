@@ -24,7 +24,8 @@
  */
 package net.runelite.http.service.xtea;
 
-import java.io.IOException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.List;
 import java.util.stream.Collectors;
 import net.runelite.cache.IndexType;
@@ -72,6 +73,11 @@ public class XteaService
 	private final Sql2o sql2o;
 	private final CacheService cacheService;
 
+	// encrypted location archives, by cache and region
+	private final Cache<Long, byte[]> regionArchives = CacheBuilder.newBuilder()
+		.maximumSize(2048L)
+		.build();
+
 	@Autowired
 	public XteaService(
 		@Qualifier("Runelite SQL2O") Sql2o sql2o,
@@ -193,6 +199,19 @@ public class XteaService
 	}
 
 	private boolean checkKeys(CacheEntry cache, int regionId, int[] keys)
+	{
+		long key = (long) cache.getId() << 32 | regionId;
+		byte[] data = regionArchives.getIfPresent(key);
+		if (data == null)
+		{
+			data = getRegionArchive(cache, regionId);
+			regionArchives.put(key, data);
+		}
+
+		return Container.checkKey(data, keys);
+	}
+
+	private byte[] getRegionArchive(CacheEntry cache, int regionId)
 	{
 		int x = regionId >>> 8;
 		int y = regionId & 0xFF;
@@ -217,15 +236,7 @@ public class XteaService
 			throw new InternalServerErrorException("Unable to get archive data");
 		}
 
-		try
-		{
-			Container.decompress(data, keys);
-			return true;
-		}
-		catch (IOException ex)
-		{
-			return false;
-		}
+		return data;
 	}
 
 	private static XteaKey entryToKey(XteaEntry xe)
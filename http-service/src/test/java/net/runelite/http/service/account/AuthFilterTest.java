@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.account;
+
+import java.io.IOException;
+import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import net.runelite.http.api.RuneLiteAPI;
+import net.runelite.http.service.account.beans.SessionEntry;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.stubbing.Answer;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+
+public class AuthFilterTest
+{
+	private final UUID uuid = UUID.randomUUID();
+
+	private Query query;
+	private HttpServletRequest request;
+	private HttpServletResponse response;
+	private AuthFilter authFilter;
+
+	@Before
+	public void before()
+	{
+		// the builder methods of Query return the query itself
+		Answer<Object> returnsSelf = invocation -> invocation.getMethod().getReturnType().isInstance(invocation.getMock())
+			? invocation.getMock()
+			: RETURNS_DEFAULTS.answer(invocation);
+
+		Sql2o sql2o = mock(Sql2o.class);
+		Connection con = mock(Connection.class);
+		query = mock(Query.class, returnsSelf);
+
+		when(sql2o.open()).thenReturn(con);
+		when(con.createQuery(anyString())).thenReturn(query);
+
+		request = mock(HttpServletRequest.class);
+		response = mock(HttpServletResponse.class);
+		when(request.getHeader(RuneLiteAPI.RUNELITE_AUTH)).thenReturn(uuid.toString());
+
+		authFilter = new AuthFilter(sql2o);
+	}
+
+	private static SessionEntry session(UUID uuid)
+	{
+		SessionEntry sessionEntry = new SessionEntry();
+		sessionEntry.setUser(1);
+		sessionEntry.setUuid(uuid);
+		return sessionEntry;
+	}
+
+	@Test
+	public void testCached() throws IOException
+	{
+		SessionEntry sessionEntry = session(uuid);
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenReturn(sessionEntry);
+
+		assertSame(sessionEntry, authFilter.handle(request, response));
+		assertSame(sessionEntry, authFilter.handle(request, response));
+		verify(query, times(1)).executeAndFetchFirst(SessionEntry.class);
+	}
+
+	@Test
+	public void testUnknownCached() throws IOException
+	{
+		assertNull(authFilter.handle(request, response));
+		assertNull(authFilter.handle(request, response));
+		verify(query, times(1)).executeAndFetchFirst(SessionEntry.class);
+		verify(response, times(2)).sendError(401, "Access denied");
+
+		// until the session is created
+		SessionEntry sessionEntry = session(uuid);
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenReturn(sessionEntry);
+		authFilter.invalidate(uuid);
+		assertSame(sessionEntry, authFilter.handle(request, response));
+	}
+
+	@Test
+	public void testInvalidateDuringLoad() throws IOException
+	{
+		// logged out after the session was read, but before the read was cached
+		when(query.executeAndFetchFirst(SessionEntry.class))
+			.thenAnswer(invocation ->
+			{
+				authFilter.invalidate(uuid);
+				return session(uuid);
+			})
+			.thenReturn(null);
+
+		assertNotNull(authFilter.handle(request, response));
+
+		assertNull(authFilter.handle(request, response));
+		verify(query, times(2)).executeAndFetchFirst(SessionEntry.class);
+		verify(response).sendError(401, "Access denied");
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.item;
+
+import java.time.Instant;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class PriceTableTest
+{
+	private static PriceEntry price(int item, int price, long time)
+	{
+		PriceEntry priceEntry = new PriceEntry();
+		priceEntry.setItem(item);
+		priceEntry.setPrice(price);
+		priceEntry.setTime(Instant.ofEpochSecond(time));
+		return priceEntry;
+	}
+
+	@Test
+	public void testUpdate()
+	{
+		PriceTable table = new PriceTable();
+		assertNull(table.get(4151));
+
+		assertTrue(table.update(price(4151, 1_500_000, 100)));
+		assertEquals(1_500_000, table.get(4151).getPrice());
+
+		// older prices don't replace newer ones
+		assertFalse(table.update(price(4151, 1_000_000, 50)));
+		assertEquals(1_500_000, table.get(4151).getPrice());
+
+		assertTrue(table.update(price(4151, 1_600_000, 200)));
+		assertEquals(1_600_000, table.get(4151).getPrice());
+		assertEquals(1, table.size());
+	}
+
+	@Test
+	public void testGetAll()
+	{
+		PriceTable table = new PriceTable();
+		table.update(price(995, 1, 100));
+		table.update(price(2, 150, 100));
+		table.update(price(20000, 5, 100));
+
+		List<PriceEntry> all = table.getAll();
+		assertEquals(3, all.size());
+		assertEquals(2, all.get(0).getItem());
+		assertEquals(995, all.get(1).getItem());
+		assertEquals(20000, all.get(2).getItem());
+		assertNull(table.get(-1));
+		assertNull(table.get(30000));
+	}
+}
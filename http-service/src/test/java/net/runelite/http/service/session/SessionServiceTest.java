@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.stubbing.Answer;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
+
+public class SessionServiceTest
+{
+	// aligned to the start of a tick
+	private static final Instant BASE = Instant.ofEpochSecond(60_000_000L);
+
+	private Sql2o sql2o;
+	private Connection con;
+	private Query query;
+
+	@Before
+	public void before()
+	{
+		// the builder methods of Query return the query itself
+		Answer<Object> returnsSelf = invocation -> invocation.getMethod().getReturnType().isInstance(invocation.getMock())
+			? invocation.getMock()
+			: RETURNS_DEFAULTS.answer(invocation);
+
+		sql2o = mock(Sql2o.class);
+		con = mock(Connection.class);
+		query = mock(Query.class, returnsSelf);
+
+		when(sql2o.open()).thenReturn(con);
+		when(sql2o.beginTransaction()).thenReturn(con);
+		when(con.createQuery(anyString())).thenReturn(query);
+	}
+
+	private static SessionEntry session(Instant last)
+	{
+		SessionEntry sessionEntry = new SessionEntry();
+		sessionEntry.setUuid(UUID.randomUUID());
+		sessionEntry.setIp("127.0.0.1");
+		sessionEntry.setStart(last);
+		sessionEntry.setLast(last);
+		return sessionEntry;
+	}
+
+	private static Instant minutes(long minutes)
+	{
+		return BASE.plus(Duration.ofMinutes(minutes));
+	}
+
+	@Test
+	public void testTimeoutBoundary()
+	{
+		SessionService service = new SessionService(sql2o, BASE);
+		SessionEntry session = session(BASE.plusSeconds(59));
+		service.createSession(session);
+
+		// exactly the timeout since the last ping
+		service.expire(minutes(5).plusSeconds(59));
+		assertNotNull(service.findSessionByUUID(session.getUuid()));
+
+		service.expire(minutes(6));
+		assertNull(service.findSessionByUUID(session.getUuid()));
+		assertEquals(0, service.getCount());
+	}
+
+	@Test
+	public void testMissedTicks()
+	{
+		SessionService service = new SessionService(sql2o, BASE);
+		SessionEntry first = session(BASE);
+		SessionEntry second = session(minutes(2));
+		// shares a slot with ticks which have been missed
+		SessionEntry recent = session(minutes(15));
+		service.createSession(first);
+		service.createSession(second);
+		service.createSession(recent);
+
+		// the first run in 20 minutes sweeps the whole wheel once
+		service.expire(minutes(20));
+		assertNull(service.findSessionByUUID(first.getUuid()));
+		assertNull(service.findSessionByUUID(second.getUuid()));
+		assertNotNull(service.findSessionByUUID(recent.getUuid()));
+
+		// and the recent session still expires on time
+		service.expire(minutes(21));
+		assertNull(service.findSessionByUUID(recent.getUuid()));
+		assertEquals(0, service.getCount());
+	}
+
+	@Test
+	public void testPingMovesSlot()
+	{
+		SessionService service = new SessionService(sql2o, BASE);
+		SessionEntry session = session(BASE);
+		service.createSession(session);
+
+		// the original slot is swept at 6 minutes, and skips the pinged session
+		for (int minute = 1; minute <= 9; ++minute)
+		{
+			if (minute == 4)
+			{
+				service.updateLast(session.getUuid(), minutes(4));
+			}
+
+			service.expire(minutes(minute));
+			assertNotNull(service.findSessionByUUID(session.getUuid()));
+		}
+
+		service.expire(minutes(10));
+		assertNull(service.findSessionByUUID(session.getUuid()));
+	}
+
+	@Test
+	public void testFlushRetry()
+	{
+		when(sql2o.beginTransaction())
+			.thenThrow(new Sql2oException("unavailable"))
+			.thenReturn(con);
+
+		SessionService service = new SessionService(sql2o, BASE);
+		SessionEntry session = session(BASE);
+		service.createSession(session);
+
+		service.flush();
+		verify(query, never()).executeBatch();
+
+		// the failed update is retried on the next flush
+		service.flush();
+		verify(query).addParameter("uuid", session.getUuid().toString());
+		verify(query).executeBatch();
+		verify(con).commit();
+
+		// and not again once it has been written
+		service.flush();
+		verify(sql2o, times(2)).beginTransaction();
+	}
+
+	@Test
+	public void testFlushExpired()
+	{
+		SessionService service = new SessionService(sql2o, BASE);
+		SessionEntry session = session(BASE);
+		service.createSession(session);
+
+		service.expire(minutes(6));
+		service.flush();
+
+		// only the delete is written, the pending update is dropped
+		verify(con).createQuery("delete from session where uuid = :uuid");
+		verify(query, never()).addParameter("ip", session.getIp());
+		verify(query).addParameter("uuid", session.getUuid().toString());
+		verify(query).executeBatch();
+		verify(con).commit();
+	}
+}
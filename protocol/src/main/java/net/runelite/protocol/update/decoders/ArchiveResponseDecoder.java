@@ -25,7 +25,6 @@
 package net.runelite.protocol.update.decoders;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import java.util.List;
@@ -34,79 +33,78 @@ import net.runelite.protocol.api.update.ArchiveResponsePacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Decodes archive responses. File contents are sent in 512 byte chunks,
+ * with the first byte of each chunk except for the first one being 0xff.
+ * The first chunk starts with the index and archive id. Archives are
+ * reassembled as data arrives, directly into the array handed to the
+ * response packet.
+ */
 public class ArchiveResponseDecoder extends ByteToMessageDecoder
 {
 	private static final Logger logger = LoggerFactory.getLogger(ArchiveResponseDecoder.class);
 
 	private static final int CHUNK_SIZE = 512;
 
+	// archive currently being read, data is null between archives
+	private int index;
+	private int file;
+	private byte[] data;
+	private int read; // bytes of data read so far
+	private int chunkPosition; // position in the current chunk
+
 	@Override
 	public void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
 	{
-		if (in.readableBytes() < 8)
+		if (data == null)
 		{
-			return;
-		}
-
-		ByteBuf copy = in.slice();
-
-		int index = copy.readUnsignedByte();
-		int file = copy.readUnsignedShort();
-		// decompress() starts reading here
-		int compression = copy.readUnsignedByte();
-		int compressedFileSize = copy.readInt();
+			if (in.readableBytes() < 8)
+			{
+				return;
+			}
 
-		assert compression == CompressionType.NONE ||
-			compression == CompressionType.BZ2 ||
-			compression == CompressionType.GZ;
+			index = in.readUnsignedByte();
+			file = in.readUnsignedShort();
+			// decompress() starts reading here, so leave these in the data
+			int compression = in.getUnsignedByte(in.readerIndex());
+			int compressedFileSize = in.getInt(in.readerIndex() + 1);
 
-		int size = compressedFileSize
-			+ 5 // 1 byte compresion type, 4 byte compressed size
-			+ (compression != CompressionType.NONE ? 4 : 0); // compression has leading 4 byte decompressed length
+			assert compression == CompressionType.NONE ||
+				compression == CompressionType.BZ2 ||
+				compression == CompressionType.GZ;
 
-		assert size > 0;
+			int size = compressedFileSize
+				+ 5 // 1 byte compresion type, 4 byte compressed size
+				+ (compression != CompressionType.NONE ? 4 : 0); // compression has leading 4 byte decompressed length
 
-		int breaks = calculateBreaks(size);
+			assert size > 0;
 
-		// 3 for index/file
-		if (size + 3 + breaks > in.readableBytes())
-		{
-			logger.trace("Index {} archive {}: Not enough data yet {} > {}", index, file, size + 3 + breaks, in.readableBytes());
-			return;
+			data = new byte[size];
+			read = 0;
+			chunkPosition = 3; // 3 for index/file
 		}
 
-		ByteBuf compressedData = Unpooled.buffer(size);
-
-		int totalRead = 3;
-		in.skipBytes(3); // skip index/file
-
-		for (int i = 0; i < breaks + 1; ++i)
+		while (read < data.length && in.isReadable())
 		{
-			int bytesInBlock = CHUNK_SIZE - (totalRead % CHUNK_SIZE);
-			int bytesToRead = Math.min(bytesInBlock, size - compressedData.writerIndex());
-
-			logger.trace("{}/{}: reading block {}/{}, read so far this block: {}, file status: {}/{}",
-				index, file,
-				(totalRead % CHUNK_SIZE), CHUNK_SIZE,
-				bytesInBlock,
-				compressedData.writerIndex(), size);
-
-			ByteBuf chunk = in.readBytes(bytesToRead);
-			compressedData.writeBytes(chunk);
-			chunk.release();
-
-			totalRead += bytesToRead;
-
-			if (i < breaks)
+			if (chunkPosition == CHUNK_SIZE)
 			{
-				assert compressedData.writerIndex() < size;
 				int b = in.readUnsignedByte();
-				++totalRead;
 				assert b == 0xff;
+				chunkPosition = 1;
+				continue;
 			}
+
+			int len = Math.min(Math.min(CHUNK_SIZE - chunkPosition, data.length - read), in.readableBytes());
+			in.readBytes(data, read, len);
+			read += len;
+			chunkPosition += len;
 		}
 
-		assert compressedData.writerIndex() == size;
+		if (read < data.length)
+		{
+			logger.trace("Index {} archive {}: Not enough data yet {} > {}", index, file, data.length, read);
+			return;
+		}
 
 		logger.trace("{}/{}: done downloading file, remaining buffer {}",
 			index, file,
@@ -115,47 +113,9 @@ public class ArchiveResponseDecoder extends ByteToMessageDecoder
 		ArchiveResponsePacket archiveResponse = new ArchiveResponsePacket();
 		archiveResponse.setIndex(index);
 		archiveResponse.setArchive(file);
-		archiveResponse.setData(compressedData.array());
+		archiveResponse.setData(data);
 		out.add(archiveResponse);
 
-		compressedData.release();
+		data = null;
 	}
-
-	/**
-	 * Calculate how many breaks there are in the file stream. There are
-	 * calculateBreaks()+1 total chunks in the file stream
-	 *
-	 * File contents are sent in 512 byte chunks, with the first byte of
-	 * each chunk except for the first one being 0xff.
-	 *
-	 * The first chunk has an 8 byte header (index, file, compression,
-	 * compressed size). So, the first chunk can contain 512 - 8 bytes of
-	 * the file, and each chunk after 511 bytes.
-	 *
-	 * The 'size' parameter has the compression type and size included in
-	 * it, since they haven't been read yet by the buffer stream, as
-	 * decompress() reads it, so we use 512 - 3 (because 8-5) = 3
-	 */
-	private static int calculateBreaks(int size)
-	{
-		int initialSize = CHUNK_SIZE - 3;
-		if (size <= initialSize)
-		{
-			return 0; // First in the initial chunk, no breaks
-		}
-		int left = size - initialSize;
-
-		if (left % (CHUNK_SIZE - 1) == 0)
-		{
-			return (left / (CHUNK_SIZE - 1));
-		}
-		else
-		{
-			// / 511 because 511 bytes of the file per chunk.
-			// + 1 if there is some left over, it still needs its
-			// own chunk
-			return (left / (CHUNK_SIZE - 1)) + 1;
-		}
-	}
-
 }
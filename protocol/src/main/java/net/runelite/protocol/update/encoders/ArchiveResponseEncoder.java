@@ -27,60 +27,66 @@ package net.runelite.protocol.update.encoders;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import java.util.List;
 import net.runelite.protocol.api.update.ArchiveResponsePacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class ArchiveResponseEncoder extends MessageToByteEncoder<ArchiveResponsePacket>
+/**
+ * Encodes archive responses as a composite buffer of the response header,
+ * break markers and slices of the archive data, without copying the data
+ */
+public class ArchiveResponseEncoder extends MessageToMessageEncoder<ArchiveResponsePacket>
 {
 	private static final Logger logger = LoggerFactory.getLogger(ArchiveResponseEncoder.class);
 
 	private static final int CHUNK_SIZE = 512;
 
+	private static final byte[] BREAK = { (byte) 0xff };
+
 	@Override
-	protected void encode(ChannelHandlerContext ctx, ArchiveResponsePacket archiveResponse, ByteBuf out) throws Exception
+	protected void encode(ChannelHandlerContext ctx, ArchiveResponsePacket archiveResponse, List<Object> out) throws Exception
 	{
+		// compressed data which starts with compression type and length
+		byte[] data = archiveResponse.getData();
+
+		// - 3 for the header
+		int chunkSize = Math.min(data.length, CHUNK_SIZE - 3);
+		int breaks = (data.length - chunkSize + CHUNK_SIZE - 2) / (CHUNK_SIZE - 1);
+
+		ByteBuf[] components = new ByteBuf[2 + breaks * 2];
+		int idx = 0;
+
 		// archive file header
 		// 1 byte index
 		// 2 byte archive
-		out.writeByte(archiveResponse.getIndex());
-		out.writeShort(archiveResponse.getArchive());
+		components[idx++] = Unpooled.wrappedBuffer(new byte[]
+		{
+			(byte) archiveResponse.getIndex(),
+			(byte) (archiveResponse.getArchive() >> 8),
+			(byte) archiveResponse.getArchive()
+		});
+		components[idx++] = Unpooled.wrappedBuffer(data, 0, chunkSize);
 
-		int pos = out.readableBytes();
+		int pos = chunkSize;
+		while (pos < data.length)
+		{
+			chunkSize = Math.min(data.length - pos, CHUNK_SIZE - 1);
 
-		// next is the compressed data which starts with compression
-		// type and length
-		ByteBuf file = Unpooled.wrappedBuffer(archiveResponse.getData());
-		// - 3 for the header
-		int chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 3);
+			components[idx++] = Unpooled.wrappedBuffer(BREAK);
+			components[idx++] = Unpooled.wrappedBuffer(data, pos, chunkSize);
 
-		writeChunk(file.readBytes(chunkSize), out);
+			pos += chunkSize;
+		}
 
-		while (file.isReadable())
-		{
-			out.writeByte(0xff);
+		assert idx == components.length;
 
-			chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 1);
-			writeChunk(file.readBytes(chunkSize), out);
-		}
+		ByteBuf buf = Unpooled.wrappedBuffer(components.length, components);
+		out.add(buf);
 
-		int size = out.readableBytes() - pos;
 		logger.debug("Wrote index {} archive {} (size {}) in {} bytes",
 			archiveResponse.getIndex(), archiveResponse.getArchive(),
-			archiveResponse.getData().length, size);
-	}
-
-	private void writeChunk(ByteBuf chunk, ByteBuf out)
-	{
-		try
-		{
-			out.writeBytes(chunk);
-		}
-		finally
-		{
-			chunk.release();
-		}
+			data.length, buf.readableBytes());
 	}
-
 }
@@ -42,6 +42,14 @@ public class XorEncoder extends MessageToByteEncoder<ByteBuf>
 		this.key = key;
 	}
 
+	@Override
+	public boolean acceptOutboundMessage(Object msg) throws Exception
+	{
+		// without a key, buffers are passed through as they are instead
+		// of being copied
+		return key != 0 && super.acceptOutboundMessage(msg);
+	}
+
 	@Override
 	protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception
 	{
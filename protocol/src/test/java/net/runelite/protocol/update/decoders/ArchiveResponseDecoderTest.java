@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.protocol.update.decoders;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.runelite.cache.fs.Container;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.protocol.api.update.ArchiveResponsePacket;
+import net.runelite.protocol.update.encoders.ArchiveResponseEncoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArchiveResponseDecoderTest
+{
+	@Test
+	public void testDecodePartial() throws Exception
+	{
+		Random random = new Random(42L);
+		EmbeddedChannel encoder = new EmbeddedChannel(new ArchiveResponseEncoder());
+		List<byte[]> archives = new ArrayList<>();
+
+		for (int i = 0; i < 3; ++i)
+		{
+			byte[] data = new byte[300 + i * 1000];
+			random.nextBytes(data);
+
+			Container container = new Container(CompressionType.NONE, -1);
+			container.compress(data, null);
+
+			ArchiveResponsePacket archiveResponse = new ArchiveResponsePacket();
+			archiveResponse.setIndex(i);
+			archiveResponse.setArchive(1000 + i);
+			archiveResponse.setData(container.data);
+			archives.add(container.data);
+
+			Assert.assertTrue(encoder.writeOutbound(archiveResponse));
+		}
+
+		ByteBuf stream = Unpooled.buffer();
+		ByteBuf encoded;
+		while ((encoded = (ByteBuf) encoder.readOutbound()) != null)
+		{
+			stream.writeBytes(encoded);
+			encoded.release();
+		}
+		Assert.assertFalse(encoder.finish());
+
+		// feed the stream to the decoder in small pieces
+		EmbeddedChannel decoder = new EmbeddedChannel(new ArchiveResponseDecoder());
+		while (stream.isReadable())
+		{
+			decoder.writeInbound(stream.readBytes(Math.min(stream.readableBytes(), 7)));
+		}
+
+		for (int i = 0; i < 3; ++i)
+		{
+			ArchiveResponsePacket response = (ArchiveResponsePacket) decoder.readInbound();
+			Assert.assertNotNull(response);
+			Assert.assertEquals(i, response.getIndex());
+			Assert.assertEquals(1000 + i, response.getArchive());
+			Assert.assertArrayEquals(archives.get(i), response.getData());
+		}
+		Assert.assertNull(decoder.readInbound());
+		Assert.assertFalse(decoder.finish());
+	}
+}
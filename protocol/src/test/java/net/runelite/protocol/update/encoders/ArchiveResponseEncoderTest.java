@@ -25,7 +25,6 @@
 package net.runelite.protocol.update.encoders;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -54,9 +53,12 @@ public class ArchiveResponseEncoderTest
 		archiveResponse.setArchive(1);
 		archiveResponse.setData(compressedData);
 
-		ByteBuf buf = Unpooled.buffer(1024);
 		ArchiveResponseEncoder encoder = new ArchiveResponseEncoder();
-		encoder.encode(null, archiveResponse, buf);
+		List<Object> encoded = new ArrayList<>();
+		encoder.encode(null, archiveResponse, encoded);
+
+		Assert.assertEquals(1, encoded.size());
+		ByteBuf buf = (ByteBuf) encoded.get(0);
 
 		ArchiveResponseDecoder decoder = new ArchiveResponseDecoder();
 		List<Object> out = new ArrayList<>();